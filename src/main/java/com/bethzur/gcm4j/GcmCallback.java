@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j;
+
+/**
+ * Callback notified when a request issued via a {@link NonBlockingGcmManager}
+ * completes. Exactly one of the methods is called for each request.
+ * <p>
+ * Callbacks are usually run on an I/O thread of the underlying transport and
+ * therefore should return quickly.
+ *
+ * @param <T>
+ *            the type of the result
+ */
+public interface GcmCallback<T> {
+
+	/**
+	 * Called when the response from the GCM service has been received and
+	 * parsed.
+	 *
+	 * @param result
+	 *            the parsed response
+	 */
+	public void completed(T result);
+
+	/**
+	 * Called when the request failed, e.g., because the GCM service could not
+	 * be reached ({@link java.io.IOException}) or its response could not be
+	 * parsed ({@link UnexpectedResponseException}).
+	 *
+	 * @param throwable
+	 *            the cause of the failure
+	 */
+	public void failed(Throwable throwable);
+}
@@ -15,6 +15,7 @@
  */
 package com.bethzur.gcm4j;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -61,6 +62,21 @@ public class MessageBuilder {
 		this.timeToLive = -1;
 	}
 
+	/**
+	 * Constructs a new {@code MessageBuilder}, copying all fields from the
+	 * specified message.
+	 *
+	 * @param message
+	 *            the message whose fields to copy
+	 */
+	public MessageBuilder(Message message) {
+		this.registrationId = message.getRegistrationId();
+		this.collapseKey = message.getCollapseKey();
+		this.data = new HashMap<String, String>(message.getData());
+		this.delayWhileIdle = message.delayWhileIdle();
+		this.timeToLive = message.timeToLive();
+	}
+
 	/**
 	 * Constructs a new {@code MessageBuilder}, copying all fields from the
 	 * specified builder.
@@ -181,6 +197,22 @@ public class MessageBuilder {
 		return this;
 	}
 
+	/**
+	 * Returns the payload data of a message for reading, without the copy
+	 * made by {@link Message#getData()}. Messages built by this class return
+	 * their own unmodifiable map; other messages return
+	 * {@link Message#getData()}.
+	 *
+	 * @param message
+	 *            the message
+	 * @return the payload data, which must not be modified
+	 */
+	public static Map<String, String> readData(Message message) {
+		if (message instanceof MessageImpl)
+			return ((MessageImpl) message).data;
+		return message.getData();
+	}
+
 	@Override
 	public String toString() {
 		return String
@@ -201,19 +233,23 @@ public class MessageBuilder {
 
 		private final String collapseKey;
 
-		private final HashMap<String, String> data;
+		private final Map<String, String> data;
 
 		private final boolean delayWhileIdle;
 
 		private final int timeToLive;
 
+		private final int hash;
+
 		public MessageImpl(String registrationId, String collapseKey,
 				Map<String, String> data, boolean delayWhileIdle, int timeToLive) {
 			this.registrationId = registrationId;
 			this.collapseKey = collapseKey;
-			this.data = new HashMap<String, String>(data);
+			this.data = Collections.unmodifiableMap(new HashMap<String, String>(
+					data));
 			this.delayWhileIdle = delayWhileIdle;
 			this.timeToLive = timeToLive;
+			this.hash = computeHash();
 		}
 
 		@Override
@@ -250,6 +286,14 @@ public class MessageBuilder {
 
 		@Override
 		public int hashCode() {
+			return hash;
+		}
+
+		/**
+		 * Computes the hash over all fields. Messages are immutable, so it is
+		 * computed once, when the message is built.
+		 */
+		private int computeHash() {
 			final int prime = 31;
 			int result = 1;
 			result = prime * result
@@ -272,6 +316,8 @@ public class MessageBuilder {
 			if (getClass() != obj.getClass())
 				return false;
 			MessageImpl other = (MessageImpl) obj;
+			if (hash != other.hash)
+				return false;
 			if (collapseKey == null) {
 				if (other.collapseKey != null)
 					return false;
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link GcmManager} that can also send the same payload to many clients in
+ * a single multicast request.
+ * <p>
+ * {@link AsyncGcmManager} instances with multicast batching enabled require a
+ * {@code MulticastGcmManager}.
+ *
+ * @see GcmManager
+ * @see DefaultGcmManager
+ */
+public interface MulticastGcmManager extends GcmManager {
+
+	/**
+	 * The maximum number of recipients the GCM service accepts in a single
+	 * multicast request.
+	 */
+	public static final int MAX_MULTICAST_RECIPIENTS = 1000;
+
+	/**
+	 * Sends a single multicast request to the GCM service to deliver the same
+	 * payload to the clients specified in each message header. All messages
+	 * must share the same collapse key, data, delayWhileIdle flag, and time to
+	 * live; only the registration ids may differ.
+	 *
+	 * @param msgs
+	 *            the messages to deliver, at most
+	 *            {@link #MAX_MULTICAST_RECIPIENTS}
+	 * @return the responses from the GCM service, one for each message and in
+	 *         the same order
+	 * @throws IllegalArgumentException
+	 *             if the list is empty, too long, or the payloads differ
+	 * @throws UnexpectedResponseException
+	 *             if the GCM service response could not be parsed
+	 * @throws IOException
+	 *             if unable to communicate with the GCM service
+	 */
+	public List<Response> pushMulticast(List<Message> msgs)
+			throws UnexpectedResponseException, IOException;
+
+}
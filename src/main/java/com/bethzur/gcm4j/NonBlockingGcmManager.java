@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j;
+
+import java.util.List;
+
+/**
+ * A {@link MulticastGcmManager} that can also issue requests without blocking
+ * the calling thread. The result of each request is delivered to a
+ * {@link GcmCallback}.
+ * <p>
+ * {@link AsyncGcmManager} instances built on a {@code NonBlockingGcmManager}
+ * use the non-blocking methods, so a few I/O threads can serve many concurrent
+ * requests.
+ *
+ * @see GcmManager
+ * @see GcmCallback
+ */
+public interface NonBlockingGcmManager extends MulticastGcmManager {
+
+	/**
+	 * Starts sending a message to the GCM service and returns immediately.
+	 *
+	 * @param msg
+	 *            the message to deliver
+	 * @param callback
+	 *            the callback notified with the response or failure
+	 */
+	public void pushMessage(Message msg, GcmCallback<Response> callback);
+
+	/**
+	 * Starts sending a multicast request to the GCM service and returns
+	 * immediately. The messages must share a payload, as described for
+	 * {@link MulticastGcmManager#pushMulticast(List)}.
+	 *
+	 * @param msgs
+	 *            the messages to deliver
+	 * @param callback
+	 *            the callback notified with the responses, one for each
+	 *            message and in the same order, or the failure
+	 * @throws IllegalArgumentException
+	 *             if the list is empty, too long, or the payloads differ
+	 */
+	public void pushMulticast(List<Message> msgs,
+			GcmCallback<List<Response>> callback);
+}
@@ -36,20 +36,30 @@ import com.bethzur.gcm4j.async.handler.Context;
  */
 abstract class AbstractContext<T, E extends Enum<E>> implements Context<T, E> {
 
-	private final FutureResponse futureResponse;
+	private final Completion completion;
 
-	private final T wrapped;
+	private final Priority priority;
+
+	private final long enqueueTime;
+
+	private T wrapped;
 
 	private long delay;
 
+	private int attempts;
+
 	private E decision;
 
 	private Map<Object, Object> map;
 
-	private AbstractContext(FutureResponse futureResponse, T wrapped,
-			E defaultDecision, long delay, Map<Object, Object> map) {
+	private AbstractContext(Completion completion, Priority priority,
+			long enqueueTime, int attempts, T wrapped, E defaultDecision,
+			long delay, Map<Object, Object> map) {
+		this.attempts = attempts;
+		this.enqueueTime = enqueueTime;
 		this.wrapped = wrapped;
-		this.futureResponse = futureResponse;
+		this.completion = completion;
+		this.priority = priority;
 		this.decision = defaultDecision;
 		this.delay = delay;
 		this.map = map;
@@ -57,30 +67,32 @@ abstract class AbstractContext<T, E extends Enum<E>> implements Context<T, E> {
 
 	/**
 	 * Constructs a new {@code AbstractContext} wrapping the given
-	 * {@code Future}, object, and initial decision.
+	 * {@code Completion}, priority, object, and initial decision.
 	 * 
-	 * @param futureResponse
-	 *            the {@code FutureResponse} for the object
+	 * @param completion
+	 *            the {@code Completion} for the object
+	 * @param priority
+	 *            the priority of the message
 	 * @param wrapped
 	 *            the object
 	 * @param defaultDecision
 	 *            the initial decision for the object
 	 */
-	public AbstractContext(FutureResponse futureResponse, T wrapped,
-			E defaultDecision) {
-		this(futureResponse, wrapped, defaultDecision, 0,
-				new HashMap<Object, Object>());
+	public AbstractContext(Completion completion, Priority priority,
+			T wrapped, E defaultDecision) {
+		this(completion, priority, System.currentTimeMillis(), 0, wrapped,
+				defaultDecision, 0, new HashMap<Object, Object>());
 	}
 
 	/**
 	 * Constructs a new {@code AbstractContext} from an existing context,
-	 * object, and initial decision. The future, delay, and internal context map
-	 * are copied. This constructor is useful for transforming, for example, a
-	 * {@link MessageContext} into a {@link ResponseContext} when a response is
-	 * received.
+	 * object, and initial decision. The completion, priority, enqueue time,
+	 * attempts, delay, and internal context map are copied. This constructor
+	 * is useful for transforming, for example, a {@link MessageContext} into
+	 * a {@link ResponseContext} when a response is received.
 	 * 
 	 * @param context
-	 *            the context whose future, delay, and internal context map to
+	 *            the context whose completion, delay, and internal context map to
 	 *            copy.
 	 * @param wrapped
 	 *            the object
@@ -89,7 +101,8 @@ abstract class AbstractContext<T, E extends Enum<E>> implements Context<T, E> {
 	 */
 	public AbstractContext(AbstractContext<?, ?> context, T wrapped,
 			E defaultDecision) {
-		this(context.futureResponse, wrapped, defaultDecision, context.delay,
+		this(context.completion, context.priority, context.enqueueTime,
+				context.attempts, wrapped, defaultDecision, context.delay,
 				context.map);
 	}
 
@@ -98,6 +111,28 @@ abstract class AbstractContext<T, E extends Enum<E>> implements Context<T, E> {
 		return wrapped;
 	}
 
+	@Override
+	public void replace(T wrapped) {
+		this.wrapped = wrapped;
+	}
+
+	@Override
+	public long getEnqueueTime() {
+		return enqueueTime;
+	}
+
+	@Override
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * Counts a send attempt of the message.
+	 */
+	void recordAttempt() {
+		attempts++;
+	}
+
 	@Override
 	public E getDecision() {
 		return decision;
@@ -108,6 +143,11 @@ abstract class AbstractContext<T, E extends Enum<E>> implements Context<T, E> {
 		this.decision = decision;
 	}
 
+	@Override
+	public Priority getPriority() {
+		return priority;
+	}
+
 	@Override
 	public long getDelay() {
 		return delay;
@@ -135,7 +175,12 @@ abstract class AbstractContext<T, E extends Enum<E>> implements Context<T, E> {
 		return (C) map.get(key);
 	}
 
-	public FutureResponse getFutureResponse() {
-		return futureResponse;
+	/**
+	 * Gets the completion to which the outcome of the message is reported.
+	 * 
+	 * @return the completion for the message
+	 */
+	public Completion getCompletion() {
+		return completion;
 	}
 }
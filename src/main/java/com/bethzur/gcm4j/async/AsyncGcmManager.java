@@ -15,12 +15,17 @@
  */
 package com.bethzur.gcm4j.async;
 
+import java.util.List;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.bethzur.gcm4j.Message;
 import com.bethzur.gcm4j.Response;
 import com.bethzur.gcm4j.async.handler.AsyncHandlers;
 import com.bethzur.gcm4j.async.handler.AsyncHandlersFactory;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * An interface for asynchronously pushing messages to clients via the GCM
@@ -45,12 +50,191 @@ public interface AsyncGcmManager {
 	 * Queues a message to be sent to the GCM service for delivery to the
 	 * client specified in the message header. The response or error is
 	 * accessible via the returned {@link Future} when available.
+	 * <p>
+	 * Instead of blocking in {@link Future#get()}, callers may register a
+	 * listener or {@link FutureCallback} (see
+	 * {@link Futures#addCallback(ListenableFuture, FutureCallback, java.util.concurrent.Executor)}
+	 * ) to react to the outcome once it is available.
 	 *
 	 * @param msg
 	 *            the message to deliver
 	 * @return a future for accessing the response from the GCM service or an
 	 *         exception
+	 * @throws MessageRejectedException
+	 *             if too many messages are pending (see {@link OverflowPolicy})
 	 */
-	public Future<Response> pushMessage(Message msg);
+	public ListenableFuture<Response> pushMessage(Message msg);
+
+	/**
+	 * Queues a message with the specified priority. Messages of a higher
+	 * priority are dispatched ahead of ready messages of lower priorities, so
+	 * their latency does not depend on the amount of lower-priority traffic
+	 * queued. Otherwise identical to {@link #pushMessage(Message)}, which uses
+	 * {@link Priority#NORMAL}.
+	 *
+	 * @param msg
+	 *            the message to deliver
+	 * @param priority
+	 *            the priority of the message
+	 * @return a future for accessing the response from the GCM service or an
+	 *         exception
+	 * @throws MessageRejectedException
+	 *             if too many messages are pending (see {@link OverflowPolicy})
+	 */
+	public ListenableFuture<Response> pushMessage(Message msg,
+			Priority priority);
+
+	/**
+	 * Queues a message to be sent to the GCM service for delivery to the
+	 * client specified in the message header, reporting the outcome to the
+	 * specified listener instead of a future. This is cheaper than
+	 * {@link #pushMessage(Message)} when the caller does not wait for the
+	 * outcome. The listener is called on the manager's callback executor.
+	 *
+	 * @param msg
+	 *            the message to deliver
+	 * @param listener
+	 *            the listener to receive the response from the GCM service or
+	 *            an exception
+	 * @throws MessageRejectedException
+	 *             if too many messages are pending (see {@link OverflowPolicy})
+	 */
+	public void pushMessage(Message msg, ResultListener listener);
+
+	/**
+	 * Queues a message with the specified priority, reporting the outcome to
+	 * the specified listener. Otherwise identical to
+	 * {@link #pushMessage(Message, ResultListener)}, which uses
+	 * {@link Priority#NORMAL}.
+	 *
+	 * @param msg
+	 *            the message to deliver
+	 * @param priority
+	 *            the priority of the message
+	 * @param listener
+	 *            the listener to receive the response from the GCM service or
+	 *            an exception
+	 * @throws MessageRejectedException
+	 *             if too many messages are pending (see {@link OverflowPolicy})
+	 */
+	public void pushMessage(Message msg, Priority priority,
+			ResultListener listener);
+
+	/**
+	 * Queues each message of the iterable, e.g., for a campaign send, with
+	 * {@link Priority#NORMAL}. Otherwise identical to
+	 * {@link #pushMessages(Iterable, Priority, ResultListener)}.
+	 *
+	 * @param msgs
+	 *            the messages to deliver
+	 * @return the aggregate outcome of the messages
+	 * @throws MessageRejectedException
+	 *             if the manager has been shut down
+	 */
+	public BulkResult pushMessages(Iterable<Message> msgs);
+
+	/**
+	 * Queues each message of the iterable with the specified priority.
+	 * Otherwise identical to
+	 * {@link #pushMessages(Iterable, Priority, ResultListener)}.
+	 *
+	 * @param msgs
+	 *            the messages to deliver
+	 * @param priority
+	 *            the priority of the messages
+	 * @return the aggregate outcome of the messages
+	 * @throws MessageRejectedException
+	 *             if the manager has been shut down
+	 */
+	public BulkResult pushMessages(Iterable<Message> msgs, Priority priority);
+
+	/**
+	 * Queues each message of the iterable with the specified priority,
+	 * counting the outcomes in the returned {@link BulkResult} and reporting
+	 * each to the specified listener, if any. The messages are pulled from the
+	 * iterable lazily and submitted in batches, so an iterable over a stream
+	 * or a cursor need not fit in memory, and the cost per message is much
+	 * lower than that of {@link #pushMessage(Message, Priority)}.
+	 * <p>
+	 * This method returns once every message has been submitted, blocking
+	 * like {@link #pushMessage(Message)} if too many messages are pending. A
+	 * message that is rejected is counted as failed and reported to the
+	 * listener rather than thrown. If the manager is shut down meanwhile, the
+	 * remaining messages are not pulled from the iterable.
+	 *
+	 * @param msgs
+	 *            the messages to deliver
+	 * @param priority
+	 *            the priority of the messages
+	 * @param listener
+	 *            the listener to receive the response or exception of each
+	 *            message, or {@code null}
+	 * @return the aggregate outcome of the messages
+	 * @throws MessageRejectedException
+	 *             if the manager has been shut down
+	 */
+	public BulkResult pushMessages(Iterable<Message> msgs, Priority priority,
+			ResultListener listener);
+
+	/**
+	 * Returns the number of pushed messages that have not yet completed, i.e.,
+	 * those waiting to be sent, delayed for retry, or in flight. Producers can
+	 * use this to slow down before the limit, if any, is reached.
+	 *
+	 * @return the number of pending and in-flight messages
+	 */
+	public int getPendingCount();
+
+	/**
+	 * Returns a snapshot of the task counts of the specified stage, e.g., to
+	 * size its executor. A stage without its own executor runs on the
+	 * scheduling executor and reports its statistics.
+	 *
+	 * @param stage
+	 *            the stage
+	 * @return the statistics of the stage's executor
+	 */
+	public StageStats getStageStats(Stage stage);
+
+	/**
+	 * Returns a snapshot of the number of queued, delayed, in-flight,
+	 * completed, and abandoned messages.
+	 *
+	 * @return the statistics
+	 */
+	public ManagerStats getStats();
+
+	/**
+	 * Stops accepting new messages and starts draining the pushed ones.
+	 * Messages that are ready or in flight are still sent and handled, and
+	 * multicast groups are sent without waiting to fill. Messages that are
+	 * delayed, e.g., backed off for retry, are not waited for: each is
+	 * completed with a {@link MessageRejectedException} and returned, so the
+	 * caller can persist it. Messages delayed later during the drain are
+	 * completed the same way and counted by {@link ManagerStats#getAbandoned()}.
+	 * <p>
+	 * The executors are not shut down, but the {@link DelayScheduler} is.
+	 * Further pushes throw a {@link MessageRejectedException}.
+	 *
+	 * @return the delayed messages that were dropped
+	 */
+	public List<Message> shutdown();
+
+	/**
+	 * Blocks until all messages accepted before {@link #shutdown()} have
+	 * completed, the timeout elapses, or the current thread is interrupted,
+	 * whichever happens first.
+	 *
+	 * @param timeout
+	 *            the longest time to wait
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return {@code true} if all messages completed, {@code false} if the
+	 *         timeout elapsed first
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException;
 
 }
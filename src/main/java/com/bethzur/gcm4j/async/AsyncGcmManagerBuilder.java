@@ -0,0 +1,502 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+import com.bethzur.gcm4j.GcmManager;
+import com.bethzur.gcm4j.MulticastGcmManager;
+import com.bethzur.gcm4j.async.handler.AsyncHandlers;
+import com.bethzur.gcm4j.async.handler.AsyncHandlersFactory;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Builder class for configuring and constructing {@link AsyncGcmManager}
+ * instances. {@link #gcmManager(GcmManager)} and
+ * {@link #executor(ScheduledExecutorService)} must be set before calling
+ * {@link #build()}. If no handlers are set, the defaults from
+ * {@link AsyncHandlersFactory#create()} are used.
+ * <p>
+ * Example:<br/>
+ * <code>
+ * AsyncGcmManager manager = new AsyncGcmManagerBuilder() <br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp; .gcmManager(gcmManager) <br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp; .executor(new ScheduledThreadPoolExecutor(MAX_THREADS)) <br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp; .multicast(1000, 50) <br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp; .build();
+ * </code>
+ *
+ * @see AsyncGcmManagerFactory
+ */
+public class AsyncGcmManagerBuilder {
+
+	GcmManager gcmManager;
+
+	AsyncHandlers handlers;
+
+	ScheduledExecutorService executor;
+
+	int maxMulticastRecipients;
+
+	long multicastLingerMillis;
+
+	Executor callbackExecutor;
+
+	int maxPending;
+
+	OverflowPolicy overflowPolicy;
+
+	long overflowTimeoutMillis;
+
+	int[] priorityWeights;
+
+	DelayScheduler delayScheduler;
+
+	int deviceStripes;
+
+	Executor transportExecutor;
+
+	Executor handlerExecutor;
+
+	boolean coalesce;
+
+	boolean deduplicate;
+
+	MessageJournal journal;
+
+	ResultListener recoveredListener;
+
+	/**
+	 * Constructs a new {@code AsyncGcmManagerBuilder} with multicast batching
+	 * disabled, no limit on the number of pending messages, strict priority
+	 * dispatch, delayed messages held by a {@link HashedWheelDelayScheduler}
+	 * with the default tick, and {@link ResultListener} callbacks run on the
+	 * thread that completes the message.
+	 */
+	public AsyncGcmManagerBuilder() {
+		this.gcmManager = null;
+		this.handlers = null;
+		this.executor = null;
+		this.maxMulticastRecipients = 1;
+		this.multicastLingerMillis = 0;
+		this.callbackExecutor = MoreExecutors.sameThreadExecutor();
+		this.maxPending = 0;
+		this.overflowPolicy = null;
+		this.overflowTimeoutMillis = 0;
+		this.priorityWeights = null;
+		this.delayScheduler = null;
+		this.deviceStripes = 0;
+		this.transportExecutor = null;
+		this.handlerExecutor = null;
+		this.coalesce = false;
+		this.deduplicate = false;
+		this.journal = null;
+		this.recoveredListener = null;
+	}
+
+	/**
+	 * Constructs a {@code AsyncGcmManager} from the builder.
+	 *
+	 * @return the newly constructed manager
+	 */
+	public AsyncGcmManager build() {
+		if (gcmManager == null)
+			throw new IllegalStateException(
+					"Required parameter 'GCM Manager' was not specified.");
+		if (executor == null)
+			throw new IllegalStateException(
+					"Required parameter 'Executor' was not specified.");
+		if (maxMulticastRecipients > 1
+				&& !(gcmManager instanceof MulticastGcmManager))
+			throw new IllegalStateException(
+					"Multicast batching requires a MulticastGcmManager.");
+		if (deviceStripes > 0 && maxMulticastRecipients > 1)
+			throw new IllegalStateException(
+					"Per-device ordering cannot be combined with multicast batching.");
+		if (handlers == null)
+			handlers = AsyncHandlersFactory.create();
+		return new AsyncGcmManagerImpl(this);
+	}
+
+	/**
+	 * Sets the synchronous manager used to communicate with the GCM service.
+	 * It must be thread-safe for as many threads as the executor will run
+	 * concurrently.
+	 *
+	 * @param gcmManager
+	 *            the synchronous manager
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder gcmManager(GcmManager gcmManager) {
+		this.gcmManager = gcmManager;
+		return this;
+	}
+
+	/**
+	 * Sets the handlers for automatically handling responses and exceptions.
+	 *
+	 * @param handlers
+	 *            the handlers
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder handlers(AsyncHandlers handlers) {
+		this.handlers = handlers;
+		return this;
+	}
+
+	/**
+	 * Sets the executor providing the background threads to deliver queued
+	 * messages. Unless separate executors are set for the
+	 * {@link Stage#TRANSPORT} and {@link Stage#HANDLER} stages, it also sends
+	 * the requests and runs the handlers.
+	 *
+	 * @param executor
+	 *            the executor
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder executor(ScheduledExecutorService executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Enables coalescing of messages with identical payloads (collapse key,
+	 * data, time to live, and delayWhileIdle flag) into multicast requests. A
+	 * group of messages is sent once it reaches {@code maxRecipients} messages
+	 * or once the first message in the group has waited {@code lingerMillis}
+	 * milliseconds, whichever comes first. Each message still receives its own
+	 * response and is handled individually by the {@link AsyncHandlers}.
+	 * <p>
+	 * A {@code maxRecipients} of {@code 1} disables batching. Batching
+	 * requires the GCM manager to be a {@link MulticastGcmManager}.
+	 *
+	 * @param maxRecipients
+	 *            the maximum number of recipients per request, at most
+	 *            {@link MulticastGcmManager#MAX_MULTICAST_RECIPIENTS}
+	 * @param lingerMillis
+	 *            the longest time a message waits for its group to fill
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder multicast(int maxRecipients, long lingerMillis) {
+		if (maxRecipients < 1
+				|| maxRecipients > MulticastGcmManager.MAX_MULTICAST_RECIPIENTS)
+			throw new IllegalArgumentException(String.format(
+					"Argument 'maxRecipients' must be between 1 and %d.",
+					MulticastGcmManager.MAX_MULTICAST_RECIPIENTS));
+		if (lingerMillis < 0)
+			throw new IllegalArgumentException(
+					"Argument 'lingerMillis' may not be negative.");
+		this.maxMulticastRecipients = maxRecipients;
+		this.multicastLingerMillis = lingerMillis;
+		return this;
+	}
+
+	/**
+	 * Sets the executor on which {@link ResultListener} callbacks are run. By
+	 * default, callbacks run directly on the thread that completes the
+	 * message, which is one of the threads delivering messages; slow
+	 * listeners should be given their own executor.
+	 *
+	 * @param callbackExecutor
+	 *            the executor for listener callbacks
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder callbackExecutor(Executor callbackExecutor) {
+		if (callbackExecutor == null)
+			throw new IllegalArgumentException(
+					"Argument 'callbackExecutor' may not be null.");
+		this.callbackExecutor = callbackExecutor;
+		return this;
+	}
+
+	/**
+	 * Limits the number of messages that have been pushed but not yet
+	 * completed, i.e., those waiting to be sent, delayed for retry, or in
+	 * flight. When the limit is reached, further pushes are handled according
+	 * to the specified policy. {@link OverflowPolicy#BLOCK} waits
+	 * indefinitely.
+	 *
+	 * @param maxPending
+	 *            the maximum number of unfinished messages
+	 * @param policy
+	 *            the policy applied when the limit is reached
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder maxPending(int maxPending,
+			OverflowPolicy policy) {
+		return maxPending(maxPending, policy, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Limits the number of messages that have been pushed but not yet
+	 * completed, i.e., those waiting to be sent, delayed for retry, or in
+	 * flight. When the limit is reached, further pushes are handled according
+	 * to the specified policy.
+	 *
+	 * @param maxPending
+	 *            the maximum number of unfinished messages
+	 * @param policy
+	 *            the policy applied when the limit is reached
+	 * @param timeoutMillis
+	 *            the longest time to wait under {@link OverflowPolicy#BLOCK};
+	 *            ignored by the other policies
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder maxPending(int maxPending,
+			OverflowPolicy policy, long timeoutMillis) {
+		if (maxPending < 1)
+			throw new IllegalArgumentException(
+					"Argument 'maxPending' must be positive.");
+		if (policy == null)
+			throw new IllegalArgumentException(
+					"Argument 'policy' may not be null.");
+		if (timeoutMillis < 0)
+			throw new IllegalArgumentException(
+					"Argument 'timeoutMillis' may not be negative.");
+		this.maxPending = maxPending;
+		this.overflowPolicy = policy;
+		this.overflowTimeoutMillis = timeoutMillis;
+		return this;
+	}
+
+	/**
+	 * Dispatches ready messages of the {@link Priority} lanes in proportion to
+	 * the specified weights instead of strictly by priority. With weights
+	 * {@code 8, 4, 1}, for example, a {@link Priority#LOW} message is sent at
+	 * least once every 13 messages while all lanes are busy. A lane with
+	 * nothing ready yields its turns to the highest non-empty lane.
+	 *
+	 * @param high
+	 *            the weight of {@link Priority#HIGH}
+	 * @param normal
+	 *            the weight of {@link Priority#NORMAL}
+	 * @param low
+	 *            the weight of {@link Priority#LOW}
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder priorityWeights(int high, int normal, int low) {
+		if (high < 1 || normal < 1 || low < 1)
+			throw new IllegalArgumentException(
+					"Arguments 'high', 'normal', and 'low' must be positive.");
+		this.priorityWeights = new int[] { high, normal, low };
+		return this;
+	}
+
+	/**
+	 * Dispatches ready messages strictly by {@link Priority}, the default.
+	 *
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder strictPriority() {
+		this.priorityWeights = null;
+		return this;
+	}
+
+	/**
+	 * Sets the scheduler holding delayed messages, e.g., those backed off by
+	 * a throttle, until they are due. It must hand due tasks to the executor
+	 * set by {@link #executor(ScheduledExecutorService)}. By default, a
+	 * {@link HashedWheelDelayScheduler} with a
+	 * {@value HashedWheelDelayScheduler#DEFAULT_TICK_MILLIS} millisecond tick
+	 * is used, whose timer thread starts with the first delayed message; an
+	 * {@link ExecutorDelayScheduler} schedules directly on the executor
+	 * instead.
+	 *
+	 * @param delayScheduler
+	 *            the scheduler for delayed messages
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder delayScheduler(DelayScheduler delayScheduler) {
+		if (delayScheduler == null)
+			throw new IllegalArgumentException(
+					"Argument 'delayScheduler' may not be null.");
+		this.delayScheduler = delayScheduler;
+		return this;
+	}
+
+	/**
+	 * Sends the messages for each device one at a time and in the order they
+	 * become ready, instead of concurrently on different threads. Each
+	 * registration id hashes to one of {@code stripes} queues, each drained by
+	 * at most one executor thread at a time, so at most {@code stripes}
+	 * messages are in flight. Per-device handlers, such as the
+	 * {@link com.bethzur.gcm4j.async.handler.DeviceBackoffThrottle}, then never
+	 * see two messages for the same device at once.
+	 * <p>
+	 * Requests are sent with blocking calls, even if the manager is a
+	 * {@link com.bethzur.gcm4j.NonBlockingGcmManager}. Priorities and their
+	 * weights do not reorder the messages of a stripe, so a high-priority
+	 * message waits for the messages that became ready before it. A message
+	 * delayed for retry is overtaken by later messages for the device that
+	 * are ready sooner. Cannot be combined with {@link #multicast(int, long)}.
+	 *
+	 * @param stripes
+	 *            the number of stripes, usually the number of executor threads
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder orderedPerDevice(int stripes) {
+		if (stripes < 1)
+			throw new IllegalArgumentException(
+					"Argument 'stripes' must be positive.");
+		this.deviceStripes = stripes;
+		return this;
+	}
+
+	/**
+	 * Sets a separate executor for the {@link Stage#TRANSPORT} stage, on which
+	 * blocking requests to the GCM service are sent. Its size then bounds the
+	 * number of requests in flight independently of the threads that filter
+	 * and dispatch messages. With per-device ordering, the stripes are drained
+	 * on this executor. Not used by a
+	 * {@link com.bethzur.gcm4j.NonBlockingGcmManager}, whose requests do not
+	 * block.
+	 *
+	 * @param transportExecutor
+	 *            the executor for sending requests
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder transportExecutor(Executor transportExecutor) {
+		if (transportExecutor == null)
+			throw new IllegalArgumentException(
+					"Argument 'transportExecutor' may not be null.");
+		this.transportExecutor = transportExecutor;
+		return this;
+	}
+
+	/**
+	 * Sets a separate executor for the {@link Stage#HANDLER} stage, on which
+	 * the response and exception handlers run. Slow handlers, e.g., ones
+	 * writing unregistered devices to a database, then do not hold threads
+	 * needed to send requests. Not used with per-device ordering, whose
+	 * stripes run the handlers themselves before sending the next message
+	 * for the device.
+	 *
+	 * @param handlerExecutor
+	 *            the executor for running the handlers
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder handlerExecutor(Executor handlerExecutor) {
+		if (handlerExecutor == null)
+			throw new IllegalArgumentException(
+					"Argument 'handlerExecutor' may not be null.");
+		this.handlerExecutor = handlerExecutor;
+		return this;
+	}
+
+	/**
+	 * Coalesces pending messages by registration id and collapse key. When a
+	 * message is pushed, or retried, while an earlier-pushed message with the
+	 * same registration id and collapse key is still queued or delayed, only
+	 * the newer one is sent; the older one is completed with a
+	 * {@link CollapsedMessageException}. GCM would deliver only the last of
+	 * such messages anyway, so after a back-off this avoids sending each of
+	 * them. Messages already in flight are not affected.
+	 *
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder coalesceByCollapseKey() {
+		this.coalesce = true;
+		return this;
+	}
+
+	/**
+	 * Sends identical messages only once while one of them is queued or in
+	 * flight. Pushing a message {@link Object#equals(Object) equal} to an
+	 * unfinished one attaches the push to it instead of sending a copy; every
+	 * attached push receives the same outcome. The message is counted once
+	 * towards {@link #maxPending(int, OverflowPolicy)}. Cancelling a returned
+	 * future detaches it; the message itself is cancelled only once every
+	 * attached future has been cancelled.
+	 *
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder deduplicate() {
+		this.deduplicate = true;
+		return this;
+	}
+
+	/**
+	 * Records each accepted message in the specified journal until it
+	 * completes, so that messages still queued, delayed, or in flight survive
+	 * a crash or restart. When the manager is built, the unfinished messages
+	 * of the previous run are recovered from the journal and pushed again;
+	 * their outcomes are logged. The journal is not closed by the manager.
+	 *
+	 * @param journal
+	 *            the journal
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder journal(MessageJournal journal) {
+		return journal(journal, new LoggingResultListener());
+	}
+
+	/**
+	 * Records each accepted message in the specified journal until it
+	 * completes, so that messages still queued, delayed, or in flight survive
+	 * a crash or restart. When the manager is built, the unfinished messages
+	 * of the previous run are recovered from the journal and pushed again,
+	 * reporting their outcomes to the specified listener. The journal is not
+	 * closed by the manager.
+	 *
+	 * @param journal
+	 *            the journal
+	 * @param recoveredListener
+	 *            the listener for the outcomes of recovered messages
+	 * @return this builder
+	 */
+	public AsyncGcmManagerBuilder journal(MessageJournal journal,
+			ResultListener recoveredListener) {
+		if (journal == null)
+			throw new IllegalArgumentException(
+					"Argument 'journal' may not be null.");
+		if (recoveredListener == null)
+			throw new IllegalArgumentException(
+					"Argument 'recoveredListener' may not be null.");
+		this.journal = journal;
+		this.recoveredListener = recoveredListener;
+		return this;
+	}
+
+	/**
+	 * Sends each blocking request on a new virtual thread instead of a pool
+	 * of platform threads, with at most {@code maxInFlight} requests in flight
+	 * at once. Concurrency is then limited by a semaphore rather than a thread
+	 * pool, so tens of thousands of blocking requests can be in flight, and
+	 * the executor set by {@link #executor(ScheduledExecutorService)}, which
+	 * only schedules messages, can stay small. Replaces any executor set by
+	 * {@link #transportExecutor(Executor)}.
+	 * <p>
+	 * The {@link GcmManager} must be thread-safe, and its connection pool sized
+	 * (see {@link com.bethzur.gcm4j.impl.HttpClientConfig}), for
+	 * {@code maxInFlight} concurrent requests. Virtual threads require Java 21
+	 * or newer.
+	 *
+	 * @param maxInFlight
+	 *            the maximum number of requests in flight
+	 * @return this builder
+	 * @throws UnsupportedOperationException
+	 *             if the JVM does not support virtual threads
+	 */
+	public AsyncGcmManagerBuilder virtualThreadTransport(int maxInFlight) {
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException(
+					"Argument 'maxInFlight' must be positive.");
+		this.transportExecutor = new ConcurrencyLimitedExecutor(
+				VirtualThreads.newPerTaskExecutor(), maxInFlight);
+		return this;
+	}
+}
@@ -15,17 +15,25 @@
  */
 package com.bethzur.gcm4j.async;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.apache.http.client.HttpClient;
+import org.apache.http.nio.client.HttpAsyncClient;
 import com.bethzur.gcm4j.GcmManager;
 import com.bethzur.gcm4j.async.handler.AsyncHandlers;
 import com.bethzur.gcm4j.async.handler.AsyncHandlersFactory;
 import com.bethzur.gcm4j.auth.ApiKeyAuthProvider;
 import com.bethzur.gcm4j.impl.DefaultGcmManager;
+import com.bethzur.gcm4j.impl.Http2GcmManager;
+import com.bethzur.gcm4j.impl.HttpClientConfig;
+import com.bethzur.gcm4j.impl.HttpClientFactory;
+import com.bethzur.gcm4j.impl.NioGcmManager;
 
 /**
  * Provides static methods for creating {@link AsyncGcmManager} instances.
+ * Further options, e.g., multicast batching, are available through
+ * {@link AsyncGcmManagerBuilder}.
  *
  * @author David R. Bild
  *
@@ -66,7 +74,80 @@ public class AsyncGcmManagerFactory {
 	 */
 	public static AsyncGcmManager create(GcmManager manager,
 			AsyncHandlers handlers, ScheduledExecutorService executor) {
-		return new AsyncGcmManagerImpl(manager, handlers, executor);
+		return new AsyncGcmManagerBuilder().gcmManager(manager)
+				.handlers(handlers).executor(executor).build();
+	}
+
+	/**
+	 * Creates an {@code AsyncGcmManager} instance that runs each
+	 * {@link Stage} on its own executor: the {@code ScheduledExecutorService}
+	 * filters, dispatches, and delays messages, the transport executor sends
+	 * blocking requests via the {@link GcmManager}, and the handler executor
+	 * runs the {@link AsyncHandlers}. Each can be sized for its own load, and
+	 * {@link AsyncGcmManager#getStageStats(Stage)} reports the queue length and
+	 * busy threads of each.
+	 * <p>
+	 * The given {@code GcmManager} must be thread-safe for as many threads as
+	 * the transport executor will run concurrently.
+	 *
+	 * @param manager
+	 *            the synchronous manager for communicating with the GCM
+	 *            service
+	 * @param handlers
+	 *            the handlers for automatically handling responses and
+	 *            exceptions
+	 * @param executor
+	 *            the executor for scheduling messages
+	 * @param transportExecutor
+	 *            the executor for sending requests
+	 * @param handlerExecutor
+	 *            the executor for running the handlers
+	 * @return the constructed async manager
+	 */
+	public static AsyncGcmManager create(GcmManager manager,
+			AsyncHandlers handlers, ScheduledExecutorService executor,
+			Executor transportExecutor, Executor handlerExecutor) {
+		return new AsyncGcmManagerBuilder().gcmManager(manager)
+				.handlers(handlers).executor(executor)
+				.transportExecutor(transportExecutor)
+				.handlerExecutor(handlerExecutor).build();
+	}
+
+	/**
+	 * Creates an {@code AsyncGcmManager} instance that sends each request via
+	 * the blocking {@link GcmManager} on a new virtual thread, with at most
+	 * {@code maxInFlight} requests in flight. The
+	 * {@code ScheduledExecutorService} only filters, dispatches, and delays
+	 * messages, so a few platform threads suffice. See
+	 * {@link AsyncGcmManagerBuilder#virtualThreadTransport(int)}.
+	 * <p>
+	 * A {@link DefaultGcmManager} and pooled client for this can be created
+	 * like this: </br> <code>
+	 *   PooledHttpClient client = HttpClientFactory.create(new HttpClientConfig(MAX_IN_FLIGHT)); </br>
+	 *   GcmManager manager = new DefaultGcmManager(client, provider); </br>
+	 * </code>
+	 *
+	 * @param manager
+	 *            the synchronous manager for communicating with the GCM
+	 *            service
+	 * @param handlers
+	 *            the handlers for automatically handling responses and
+	 *            exceptions
+	 * @param executor
+	 *            the executor for scheduling messages
+	 * @param maxInFlight
+	 *            the maximum number of requests in flight
+	 * @return the constructed async manager
+	 * @throws UnsupportedOperationException
+	 *             if the JVM does not support virtual threads (Java 21 or
+	 *             newer)
+	 */
+	public static AsyncGcmManager createWithVirtualThreads(
+			GcmManager manager, AsyncHandlers handlers,
+			ScheduledExecutorService executor, int maxInFlight) {
+		return new AsyncGcmManagerBuilder().gcmManager(manager)
+				.handlers(handlers).executor(executor)
+				.virtualThreadTransport(maxInFlight).build();
 	}
 
 	/**
@@ -111,19 +192,17 @@ public class AsyncGcmManagerFactory {
 	 * exceptions.
 	 * <p>
 	 * The given {@code HttpClient} must be thread-safe for as many threads as
-	 * the {@code ScheduleExecutorService} will run concurrently. An
-	 * {@code HttpClient} instance for {@code MAX_THREADS} concurrent threads
-	 * can be created like this: </br> <code>
-	 *   PoolingClientConnectionManager connManager = new PoolingClientConnectionManager(); </br>
-	 *   conmManager.setMaxTotal(MAX_THREADS); </br>
-	 *   connManager.setDefaultMaxPerRoute(MAX_THREADS); </br>
-	 *   HttpClient client = new DefaultHttpClient(connManager); </br>
+	 * the {@code ScheduleExecutorService} will run concurrently. An executor
+	 * for {@code MAX_THREADS} concurrent threads and a pooled
+	 * {@code CloseableHttpClient} sized for it can be created like this:
+	 * </br> <code>
+	 *   ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(MAX_THREADS); </br>
+	 *   PooledHttpClient client = HttpClientFactory.create(executor); </br>
 	 * </code>
 	 * <p>
-	 * An executor for {@code MAX_THREADS} concurrent threads can created like
-	 * this: </br> <code>
-	 *   ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(MAX_THREADS);
-	 * </code>
+	 * See {@link HttpClientFactory} and {@link HttpClientConfig} for tuning
+	 * the pool and timeouts. Close the client after shutting down the async
+	 * manager.
 	 *
 	 * @param client
 	 *            the client used to send HTTP requests
@@ -159,19 +238,17 @@ public class AsyncGcmManagerFactory {
 	 * <code>Retry-After</code> headers is registered.
 	 * <p>
 	 * The given {@code HttpClient} must be thread-safe for as many threads as
-	 * the {@code ScheduleExecutorService} will run concurrently. An
-	 * {@code HttpClient} instance for {@code MAX_THREADS} concurrent threads
-	 * can be created like this: </br> <code>
-	 *   PoolingClientConnectionManager connManager = new PoolingClientConnectionManager(); </br>
-	 *   conmManager.setMaxTotal(MAX_THREADS); </br>
-	 *   connManager.setDefaultMaxPerRoute(MAX_THREADS); </br>
-	 *   HttpClient client = new DefaultHttpClient(connManager); </br>
+	 * the {@code ScheduleExecutorService} will run concurrently. An executor
+	 * for {@code MAX_THREADS} concurrent threads and a pooled
+	 * {@code CloseableHttpClient} sized for it can be created like this:
+	 * </br> <code>
+	 *   ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(MAX_THREADS); </br>
+	 *   PooledHttpClient client = HttpClientFactory.create(executor); </br>
 	 * </code>
 	 * <p>
-	 * An executor for {@code MAX_THREADS} concurrent threads can created like
-	 * this: </br> <code>
-	 *   ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(MAX_THREADS);
-	 * </code>
+	 * See {@link HttpClientFactory} and {@link HttpClientConfig} for tuning
+	 * the pool and timeouts. Close the client after shutting down the async
+	 * manager.
 	 *
 	 * @param client
 	 *            the client used to send HTTP requests
@@ -188,4 +265,82 @@ public class AsyncGcmManagerFactory {
 		return create(client, provider, AsyncHandlersFactory.create(), executor);
 	}
 
+	/**
+	 * Creates an {@code AsyncGcmManager} instance that delivers messages via a
+	 * non-blocking {@link NioGcmManager} constructed from the given
+	 * {@link HttpAsyncClient} and {@link ApiKeyAuthProvider}.
+	 * {@link AsyncHandlers} are used to filter the messages and automatically
+	 * handle to responses and exceptions.
+	 * <p>
+	 * Requests are multiplexed over the I/O threads of the client, so the
+	 * {@code ScheduledExecutorService} only runs the filters and handlers and
+	 * can be much smaller than the number of concurrent requests. The client
+	 * must already be started.
+	 *
+	 * @param client
+	 *            the started client used to send HTTP requests
+	 * @param provider
+	 *            the provider used to retrieve the API key
+	 * @param handlers
+	 *            the handlers for automatically handling responses and
+	 *            exceptions
+	 * @param executor
+	 *            the executor providing the background threads to filter
+	 *            queued messages and handle responses
+	 * @return the constructed async manager
+	 */
+	public static AsyncGcmManager create(HttpAsyncClient client,
+			ApiKeyAuthProvider provider, AsyncHandlers handlers,
+			ScheduledExecutorService executor) {
+		return create(new NioGcmManager(client, provider), handlers, executor);
+	}
+
+	/**
+	 * Creates an {@code AsyncGcmManager} instance that delivers messages via a
+	 * non-blocking {@link NioGcmManager} constructed from the given
+	 * {@link HttpAsyncClient} and {@link ApiKeyAuthProvider}.
+	 * <p>
+	 * A default {@link AsyncHandlers} instance that implements automatic retry
+	 * with exponential back-off (globally for <code>Service Unavailable</code>
+	 * and <code>Quota
+	 * Exceeded</code> errors and per-device for
+	 * <code>Device Quota Exceeded</code> errors) and honors
+	 * <code>Retry-After</code> headers is registered.
+	 *
+	 * @param client
+	 *            the started client used to send HTTP requests
+	 * @param provider
+	 *            the provider used to retrieve the API key
+	 * @param executor
+	 *            the executor providing the background threads to filter
+	 *            queued messages and handle responses
+	 * @return the constructed async manager
+	 */
+	public static AsyncGcmManager create(HttpAsyncClient client,
+			ApiKeyAuthProvider provider, ScheduledExecutorService executor) {
+		return create(client, provider, AsyncHandlersFactory.create(), executor);
+	}
+
+	/**
+	 * Creates an {@link Http2GcmManager}, which multiplexes concurrent requests
+	 * as HTTP/2 streams over a fixed number of connections. Pass it to
+	 * {@link #create(GcmManager, AsyncHandlers, ScheduledExecutorService)} or
+	 * {@link AsyncGcmManagerBuilder#gcmManager(GcmManager)}, and call
+	 * {@link Http2GcmManager#shutdown()} after shutting down the async manager
+	 * to release its connections and threads.
+	 *
+	 * @param provider
+	 *            the provider used to retrieve the API key
+	 * @param connections
+	 *            the number of connections to the GCM service
+	 * @param maxConcurrentStreams
+	 *            the maximum number of concurrent requests per connection
+	 * @return the HTTP/2 transport
+	 */
+	public static Http2GcmManager createHttp2Manager(
+			ApiKeyAuthProvider provider, int connections,
+			int maxConcurrentStreams) {
+		return new Http2GcmManager(provider, connections, maxConcurrentStreams);
+	}
+
 }
@@ -15,25 +15,42 @@
  */
 package com.bethzur.gcm4j.async;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.bethzur.gcm4j.GcmCallback;
 import com.bethzur.gcm4j.GcmManager;
 import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.MulticastGcmManager;
+import com.bethzur.gcm4j.NonBlockingGcmManager;
 import com.bethzur.gcm4j.Response;
 import com.bethzur.gcm4j.async.handler.AsyncHandlers;
+import com.bethzur.gcm4j.async.handler.DispatchGate;
 import com.bethzur.gcm4j.async.handler.MessageFilter;
 import com.bethzur.gcm4j.async.handler.ResponseHandler;
 import com.bethzur.gcm4j.async.handler.ThrowableHandler;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Default implementation of {@link AsyncGcmManager}. Instances can be created
  * using the factory methods in {@link AsyncGcmManagerFactory}.
  * <p>
  * Internally, each message is wrapped in a {@link MessageContext} linking to
- * the {@link Future}, {@link Message}, and context available to any registered
+ * the {@link Completion} (a {@link Future} or {@link ResultListener}),
+ * {@link Message}, and context available to any registered
  * {@link MessageFilter}, {@link ResponseHandler}, or {@link ThrowableHandler}.
  * <p>
  * Each message is passed through all registered
@@ -44,8 +61,83 @@ import com.bethzur.gcm4j.async.handler.ThrowableHandler;
  * through all registered {@link ResponseHandler#handleResponse(Context)} when
  * received. Similarly, exceptions are passed through all registered
  * {@link ThrowableHandler#handleThrowable(Context)} when thrown. Each handler
- * may choose to return the response/throwable via the {@link Future} or retry
+ * may choose to return the response/throwable via the {@link Completion} or retry
  * the message (with delay).
+ * <p>
+ * Before a ready message is taken from its lane, the dispatch is admitted by
+ * all registered {@link DispatchGate}s. A gate that cannot admit it now
+ * retries it later, and the messages stay in their lanes meanwhile, so a
+ * higher-priority message pushed in the meantime is sent first. The admission
+ * is bound to the message once it passes the dequeue filters, and cancelled
+ * if no message is sent. A message admitted but not sent after all, e.g.,
+ * because it was cancelled, is released from the gates. A stripe instead
+ * keeps its next message until the gates admit its dispatch. After shutdown,
+ * a message whose gate can no longer wait is dropped like a delayed one.
+ * <p>
+ * Delayed messages, and the linger deadlines of multicast groups, are held by
+ * a {@link DelayScheduler}, which hands them to the executor once due.
+ * Cancelled messages are removed from the scheduler (see
+ * {@link FutureResponse}) and are skipped if they are nonetheless dequeued,
+ * pulled from a multicast group, or retried.
+ * <p>
+ * With coalescing enabled, a {@link CollapseKeyCoalescer} tracks the pending
+ * message for each registration id and collapse key. A newer pending message
+ * supersedes an older one, which is completed with a
+ * {@link CollapsedMessageException} instead of being sent.
+ * <p>
+ * With deduplication enabled, a push of a message identical to one that is
+ * queued or in flight is attached to it by a {@link MessageDeduplicator}
+ * instead of being admitted.
+ * <p>
+ * With a {@link MessageJournal}, each admitted message is appended to the
+ * journal and marked sent when dispatched and completed when its completion
+ * is done. The messages of a bulk push are appended in batches, each written
+ * to disk once. Messages dropped by {@link #shutdown()} stay unfinished. On
+ * construction, the unfinished messages of a previous run are recovered and
+ * pushed again, reporting to a {@link ResultListener}.
+ * <p>
+ * Messages that are ready to be sent, either immediately or once their delay
+ * expires, are added to the {@link PriorityLanes} lane of their
+ * {@link Priority}. Each executor task then dispatches whichever ready message
+ * the lanes select, so higher-priority messages overtake queued
+ * lower-priority ones.
+ * <p>
+ * With per-device ordering enabled, ready messages are instead added to the
+ * {@link DeviceStripes} stripe of their registration id, each drained by at
+ * most one executor task at a time. Messages for a device are then sent one
+ * at a time, in the order they became ready regardless of priority, using
+ * blocking requests.
+ * <p>
+ * Each message is counted by a {@link SubmissionLimiter} from the time it is
+ * pushed until it completes, optionally bounding the number of unfinished
+ * messages.
+ * <p>
+ * If multicast batching is enabled, messages that pass the dequeue filters are
+ * grouped by payload in a {@link MulticastBatcher} and each group is sent with
+ * a single {@link MulticastGcmManager#pushMulticast(List)} request. The
+ * responses are then handled individually, exactly as for singly-sent
+ * messages.
+ * <p>
+ * Bulk pushes admit their messages in batches and schedule each batch with
+ * one dispatch task per few messages instead of one per message. Before
+ * blocking for a permit, a bulk push submits its current batch, so the
+ * permits it holds are released as those messages complete.
+ * <p>
+ * If the {@link GcmManager} is a {@link NonBlockingGcmManager}, requests are
+ * issued without blocking an executor thread. The response or failure is
+ * handed back to the executor by a callback and then handled as usual.
+ * <p>
+ * After {@link #shutdown()}, no new messages are accepted. Messages that are
+ * ready or in flight are still sent and handled, multicast groups are sent
+ * without waiting for their linger deadline, and delayed messages, including
+ * retries delayed during the drain, are completed with a
+ * {@link MessageRejectedException} and reported.
+ * <p>
+ * Each {@link Stage} runs on a {@link StageExecutor}, which counts its tasks.
+ * Blocking requests are sent on the transport executor and their outcomes
+ * handled on the handler executor, if these are configured; otherwise, both
+ * run on the thread that dispatched the message. With per-device ordering,
+ * the outcomes are always handled on the stripe's thread.
  *
  * @author David R. Bild
  *
@@ -54,14 +146,88 @@ class AsyncGcmManagerImpl implements AsyncGcmManager {
 	private static final Logger LOGGER = LoggerFactory
 			.getLogger(AsyncGcmManagerImpl.class);
 
+	/**
+	 * The largest number of messages of a bulk push submitted together.
+	 */
+	private static final int BULK_BATCH_SIZE = 256;
+
+	/**
+	 * The number of messages dispatched by each task of a bulk push, so
+	 * blocking sends are still spread across threads.
+	 */
+	private static final int BULK_DISPATCH_SIZE = 16;
+
 	private ScheduledExecutorService executor;
 
+	private StageExecutor schedulingStage;
+
+	private StageExecutor transportStage;
+
+	private StageExecutor handlerStage;
+
+	private DelayScheduler delayScheduler;
+
 	private AsyncHandlers handlers;
 
 	private GcmManager gcm;
 
+	private MulticastBatcher batcher;
+
+	private Executor callbackExecutor;
+
+	private SubmissionLimiter limiter;
+
+	/**
+	 * Notified when a message completes; the limiter, unless journaling.
+	 */
+	private Completion.Listener completionListener;
+
+	private MessageJournal journal;
+
+	/**
+	 * The journal record ids of the unfinished messages.
+	 */
+	private ConcurrentMap<Completion, Long> journaled;
+
+	private PriorityLanes lanes;
+
+	private DeviceStripes stripes;
+
+	private CollapseKeyCoalescer coalescer;
+
+	private MessageDeduplicator deduplicator;
+
+	private int bulkBatchSize = BULK_BATCH_SIZE;
+
+	private final AtomicInteger delayed = new AtomicInteger();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicLong abandoned = new AtomicLong();
+
+	private volatile boolean shutdown;
+
+	private final Runnable dispatchTask = new Runnable() {
+		@Override
+		public void run() {
+			dispatch();
+		}
+	};
+
+	private final DispatchGate.Wakeup dispatchWakeup = new GateWakeup() {
+		@Override
+		public void wake() {
+			try {
+				schedulingStage.execute(dispatchTask);
+			} catch (RuntimeException e) {
+				dropDispatch(e);
+			}
+		}
+	};
+
 	/**
-	 * Constructs a new asynchronous manager.
+	 * Constructs a new asynchronous manager that schedules delayed messages
+	 * directly on the executor.
 	 * <p>
 	 * The {@code Manager} must be thread-safe up to the number of
 	 * concurrent threads backing the executor.
@@ -80,54 +246,888 @@ class AsyncGcmManagerImpl implements AsyncGcmManager {
 			AsyncHandlers handlers, ScheduledExecutorService executor) {
 		this.gcm = gcmManager;
 		this.executor = executor;
+		this.schedulingStage = new StageExecutor(executor);
+		this.delayScheduler = new ExecutorDelayScheduler(executor);
 		this.handlers = handlers;
+		this.callbackExecutor = MoreExecutors.sameThreadExecutor();
+		this.limiter = new SubmissionLimiter();
+		this.completionListener = limiter;
+		this.lanes = new PriorityLanes();
+	}
+
+	/**
+	 * Constructs a new asynchronous manager configured by the specified
+	 * builder.
+	 *
+	 * @param builder
+	 *            the builder holding the configuration
+	 */
+	AsyncGcmManagerImpl(AsyncGcmManagerBuilder builder) {
+		this(builder.gcmManager, builder.handlers, builder.executor);
+		this.callbackExecutor = builder.callbackExecutor;
+		if (builder.transportExecutor != null)
+			this.transportStage = new StageExecutor(builder.transportExecutor);
+		if (builder.handlerExecutor != null)
+			this.handlerStage = new StageExecutor(builder.handlerExecutor);
+		this.delayScheduler = (builder.delayScheduler != null) ? builder.delayScheduler
+				: new HashedWheelDelayScheduler(schedulingStage);
+		this.lanes = new PriorityLanes(builder.priorityWeights);
+		if (builder.deviceStripes > 0) {
+			// Stripes send inline, so drain them on the transport stage
+			this.stripes = new DeviceStripes(builder.deviceStripes,
+					(transportStage != null) ? transportStage : schedulingStage,
+					new DeviceStripes.Processor() {
+						@Override
+						public boolean process(MessageContext context,
+								Runnable resume) {
+							return processStriped(context, resume);
+						}
+					});
+		}
+		if (builder.coalesce)
+			this.coalescer = new CollapseKeyCoalescer();
+		if (builder.maxPending > 0) {
+			this.limiter = new SubmissionLimiter(builder.maxPending,
+					builder.overflowPolicy, builder.overflowTimeoutMillis);
+			this.bulkBatchSize = Math.max(1,
+					Math.min(BULK_BATCH_SIZE, builder.maxPending / 2));
+		}
+		this.completionListener = limiter;
+		if (builder.journal != null) {
+			this.journal = builder.journal;
+			this.journaled = new ConcurrentHashMap<Completion, Long>();
+			this.completionListener = new Completion.Listener() {
+				@Override
+				public void done(Completion completion) {
+					limiter.done(completion);
+					journalCompleted(completion);
+				}
+			};
+		}
+		if (builder.deduplicate)
+			this.deduplicator = new MessageDeduplicator(completionListener,
+					new MessageDeduplicator.Admission() {
+						@Override
+						public void admit(Completion completion,
+								Priority priority, Message message) {
+							AsyncGcmManagerImpl.this.admit(new MessageContext(
+									completion, priority, message));
+						}
+					});
+		if (builder.maxMulticastRecipients > 1) {
+			this.batcher = new MulticastBatcher(
+					builder.maxMulticastRecipients,
+					builder.multicastLingerMillis, delayScheduler,
+					new MulticastBatcher.Sender() {
+						@Override
+						public void send(List<MessageContext> batch) {
+							issueMulticast(batch);
+						}
+					});
+		}
+		if (journal != null)
+			recover(builder.recoveredListener);
+	}
+
+	@Override
+	public ListenableFuture<Response> pushMessage(Message msg) {
+		return pushMessage(msg, Priority.NORMAL);
 	}
 
 	@Override
-	public FutureResponse pushMessage(Message msg) {
-		FutureResponse future = new FutureResponse();
-		submit(new MessageContext(future, msg));
+	public ListenableFuture<Response> pushMessage(Message msg,
+			Priority priority) {
+		if (deduplicator != null) {
+			checkNotShutdown();
+			return (FutureResponse) deduplicator.push(msg, priority,
+					new MessageDeduplicator.CompletionFactory() {
+						@Override
+						public Completion create(Completion.Listener listener) {
+							return new FutureResponse(listener);
+						}
+					});
+		}
+		FutureResponse future = new FutureResponse(completionListener);
+		admit(new MessageContext(future, priority, msg));
 		return future;
 	}
 
+	@Override
+	public void pushMessage(Message msg, ResultListener listener) {
+		pushMessage(msg, Priority.NORMAL, listener);
+	}
+
+	@Override
+	public void pushMessage(final Message msg, Priority priority,
+			final ResultListener listener) {
+		if (deduplicator != null) {
+			checkNotShutdown();
+			deduplicator.push(msg, priority,
+					new MessageDeduplicator.CompletionFactory() {
+						@Override
+						public Completion create(Completion.Listener done) {
+							return new ListenerCompletion(msg, listener,
+									callbackExecutor, done);
+						}
+					});
+			return;
+		}
+		ListenerCompletion completion = new ListenerCompletion(msg, listener,
+				callbackExecutor, completionListener);
+		admit(new MessageContext(completion, priority, msg));
+	}
+
+	@Override
+	public BulkResult pushMessages(Iterable<Message> msgs) {
+		return pushMessages(msgs, Priority.NORMAL, null);
+	}
+
+	@Override
+	public BulkResult pushMessages(Iterable<Message> msgs, Priority priority) {
+		return pushMessages(msgs, priority, null);
+	}
+
+	@Override
+	public BulkResult pushMessages(Iterable<Message> msgs, Priority priority,
+			final ResultListener listener) {
+		checkNotShutdown();
+		final BulkResult result = new BulkResult();
+		final ResultListener counting = new CountingResultListener(result,
+				listener);
+		BatchAdmission batch = new BatchAdmission();
+		try {
+			for (final Message msg : msgs) {
+				result.submitted();
+				final ListenerCompletion[] completion = new ListenerCompletion[1];
+				try {
+					if (deduplicator != null) {
+						checkNotShutdown();
+						deduplicator.push(msg, priority,
+								new MessageDeduplicator.CompletionFactory() {
+									@Override
+									public Completion create(
+											Completion.Listener done) {
+										completion[0] = new ListenerCompletion(
+												msg, counting,
+												callbackExecutor, done);
+										return completion[0];
+									}
+								}, batch);
+					} else {
+						completion[0] = new ListenerCompletion(msg,
+								counting, callbackExecutor, completionListener);
+						batch.admit(new MessageContext(completion[0], priority,
+								msg));
+					}
+				} catch (RuntimeException e) {
+					if (completion[0] == null)
+						completion[0] = new ListenerCompletion(msg,
+								counting, callbackExecutor, null);
+					// Completed already if admitted; otherwise the limiter
+					// must not count it as done
+					completion[0].refuse(e);
+					if (shutdown)
+						break;
+				}
+			}
+		} finally {
+			batch.flush();
+			result.seal();
+		}
+		return result;
+	}
+
+	@Override
+	public int getPendingCount() {
+		return limiter.getDepth();
+	}
+
+	@Override
+	public StageStats getStageStats(Stage stage) {
+		switch (stage) {
+		case TRANSPORT:
+			if (transportStage != null)
+				return transportStage.getStats();
+			break;
+		case HANDLER:
+			if (handlerStage != null)
+				return handlerStage.getStats();
+			break;
+		default:
+			break;
+		}
+		return schedulingStage.getStats();
+	}
+
+	@Override
+	public List<Message> shutdown() {
+		shutdown = true;
+		List<Message> dropped = new ArrayList<Message>();
+		for (Runnable task : delayScheduler.shutdown()) {
+			if (task instanceof DelayedMessage) {
+				delayed.decrementAndGet();
+				MessageContext context = ((DelayedMessage) task).context;
+				if (abandon(context))
+					dropped.add(context.unwrap());
+			} else {
+				// E.g., the linger deadline of a multicast group; send it now
+				try {
+					schedulingStage.execute(task);
+				} catch (RejectedExecutionException e) {
+					task.run();
+				}
+			}
+		}
+		return dropped;
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return limiter.awaitEmpty(timeout, unit);
+	}
+
+	@Override
+	public ManagerStats getStats() {
+		int delayed = this.delayed.get();
+		int inFlight = this.inFlight.get();
+		int queued = Math.max(0, limiter.getDepth() - delayed - inFlight);
+		return new ManagerStats(queued, delayed, inFlight,
+				limiter.getCompleted(), abandoned.get());
+	}
+
+	/**
+	 * Drops a message that was to be delayed past the shutdown.
+	 *
+	 * @return {@code true} if the message was dropped, {@code false} if it had
+	 *         already completed
+	 */
+	private boolean abandon(MessageContext context) {
+		if (context.getCompletion().isDone())
+			return false;
+		abandoned.incrementAndGet();
+		if (journal != null) {
+			// Keep it unfinished in the journal, to be recovered on restart
+			journaled.remove(context.getCompletion());
+		}
+		context.getCompletion().reject(
+				new MessageRejectedException(
+						"Manager was shut down before the delayed message was due."));
+		return true;
+	}
+
+	private void checkNotShutdown() {
+		if (shutdown)
+			throw new MessageRejectedException("Manager has been shut down.");
+	}
+
+	private void admit(MessageContext context) {
+		checkNotShutdown();
+		limiter.acquire(context.getCompletion(), context.getPriority());
+		if (journal != null)
+			journalAccepted(context);
+		try {
+			submit(context);
+		} catch (RuntimeException e) {
+			// E.g., the executor was shut down; release the admission
+			context.getCompletion().setThrowable(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Records an admitted message in the journal, or else rejects it.
+	 */
+	private void journalAccepted(MessageContext context) {
+		Completion completion = context.getCompletion();
+		try {
+			journaled.put(completion,
+					journal.append(context.unwrap(), context.getPriority()));
+		} catch (IOException e) {
+			MessageRejectedException rejection = new MessageRejectedException(
+					"Unable to journal the message.", e);
+			completion.reject(rejection);
+			throw rejection;
+		}
+		// Completed, e.g., shed, before the id was recorded
+		if (completion.isDone())
+			journalCompleted(completion);
+	}
+
+	/**
+	 * Records a batch of admitted messages in the journal with a single
+	 * append.
+	 */
+	private void journalAccepted(List<MessageContext> contexts)
+			throws IOException {
+		List<MessageJournal.Entry> entries = new ArrayList<MessageJournal.Entry>(
+				contexts.size());
+		for (MessageContext context : contexts) {
+			entries.add(new MessageJournal.Entry(context.unwrap(), context
+					.getPriority()));
+		}
+		long[] ids = journal.append(entries);
+		for (int i = 0; i < ids.length; i++) {
+			Completion completion = contexts.get(i).getCompletion();
+			journaled.put(completion, ids[i]);
+			// Completed, e.g., shed, before the id was recorded
+			if (completion.isDone())
+				journalCompleted(completion);
+		}
+	}
+
+	/**
+	 * Counts a send attempt of the message and records it in the journal.
+	 */
+	private void dispatched(MessageContext context) {
+		context.recordAttempt();
+		if (journal != null)
+			journalSent(context);
+	}
+
+	private void journalSent(MessageContext context) {
+		Long id = journaled.get(context.getCompletion());
+		if (id == null)
+			return;
+		try {
+			journal.markSent(id);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to journal a sent message.", e);
+		}
+	}
+
+	private void journalCompleted(Completion completion) {
+		Long id = journaled.remove(completion);
+		if (id == null)
+			return;
+		try {
+			journal.markCompleted(id);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to journal a completed message.", e);
+		}
+	}
+
+	/**
+	 * Pushes the unfinished messages recovered from the journal and then
+	 * discards their old records.
+	 */
+	private void recover(ResultListener listener) {
+		try {
+			BatchAdmission batch = new BatchAdmission();
+			try {
+				for (MessageJournal.Entry entry : journal.recover()) {
+					Message msg = entry.getMessage();
+					batch.admit(new MessageContext(new ListenerCompletion(msg,
+							listener, callbackExecutor, completionListener),
+							entry.getPriority(), msg));
+				}
+			} finally {
+				batch.flush();
+			}
+			// Keep the old records of messages not journaled again
+			if (batch.journalFailure != null)
+				throw batch.journalFailure;
+			journal.discardRecovered();
+		} catch (IOException e) {
+			throw new IllegalStateException(
+					"Unable to recover messages from the journal.", e);
+		}
+	}
+
 	private void submit(MessageContext context) {
+		submit(context, null);
+	}
+
+	/**
+	 * Admits the messages of a bulk push or a recovery in batches of at most
+	 * {@link #bulkBatchSize}. Each batch is appended to the journal at once
+	 * and its ready messages are dispatched together.
+	 */
+	private class BatchAdmission implements MessageDeduplicator.Admission {
+
+		private final List<MessageContext> accepted;
+
+		private final List<MessageContext> ready;
+
+		/**
+		 * The first failure to journal a batch, whose messages were rejected.
+		 */
+		private IOException journalFailure;
+
+		public BatchAdmission() {
+			this.accepted = new ArrayList<MessageContext>(bulkBatchSize);
+			this.ready = new ArrayList<MessageContext>(bulkBatchSize);
+		}
+
+		@Override
+		public void admit(Completion completion, Priority priority,
+				Message message) {
+			admit(new MessageContext(completion, priority, message));
+		}
+
+		/**
+		 * Takes a permit for the message and adds it to the batch, submitting
+		 * the batch if it is full or before blocking for the permit.
+		 */
+		void admit(MessageContext context) {
+			checkNotShutdown();
+			Completion completion = context.getCompletion();
+			if (!limiter.tryAcquire(completion, context.getPriority())) {
+				// The messages of the batch hold permits until submitted
+				flush();
+				limiter.acquire(completion, context.getPriority());
+			}
+			accepted.add(context);
+			if (accepted.size() >= bulkBatchSize)
+				flush();
+		}
+
+		/**
+		 * Journals and submits the messages of the batch and schedules the
+		 * dispatch of those that are ready.
+		 */
+		void flush() {
+			if (accepted.isEmpty())
+				return;
+			if (journal != null) {
+				try {
+					journalAccepted(accepted);
+				} catch (IOException e) {
+					if (journalFailure == null)
+						journalFailure = e;
+					MessageRejectedException rejection = new MessageRejectedException(
+							"Unable to journal the message.", e);
+					for (MessageContext context : accepted)
+						context.getCompletion().reject(rejection);
+				}
+			}
+			for (MessageContext context : accepted) {
+				try {
+					submit(context, ready);
+				} catch (RuntimeException e) {
+					// E.g., the executor was shut down; release the admission
+					context.getCompletion().setThrowable(e);
+				}
+			}
+			accepted.clear();
+			dispatchAll(ready);
+		}
+	}
+
+	private void submit(MessageContext context, List<MessageContext> ready) {
+		if (context.getCompletion().isDone())
+			return;
 		handlers.filterMessageEnqueue(context);
 		switch (context.getDecision()) {
 		case SEND:
-			executor.schedule(new MessageRunnable(context), context.getDelay(),
-					TimeUnit.MILLISECONDS);
+			if (coalescer != null && !coalescer.add(context))
+				return;
+			if (context.getDelay() > 0) {
+				delay(context);
+			} else if (stripes != null) {
+				stripes.add(context);
+			} else if (ready != null) {
+				lanes.add(context);
+				ready.add(context);
+			} else {
+				lanes.add(context);
+				try {
+					schedulingStage.execute(dispatchTask);
+				} catch (RuntimeException e) {
+					lanes.remove(context);
+					throw e;
+				}
+			}
 			return;
 		case CANCEL:
-			context.getFutureResponse().setCancelled();
+			context.getCompletion().setCancelled();
+			return;
+		}
+	}
+
+	private void delay(MessageContext context) {
+		if (shutdown) {
+			abandon(context);
+			return;
+		}
+		DelayedMessage task = new DelayedMessage(context);
+		delayed.incrementAndGet();
+		try {
+			task.timeout = delayScheduler.schedule(task, context.getDelay());
+		} catch (RejectedExecutionException e) {
+			delayed.decrementAndGet();
+			if (!shutdown)
+				throw e;
+			abandon(context);
+			return;
+		}
+		context.getCompletion().setPendingTask(task);
+	}
+
+	/**
+	 * Schedules the dispatch of the messages of a bulk push added to the
+	 * lanes, with one task per {@link #BULK_DISPATCH_SIZE} messages, and
+	 * clears the list.
+	 */
+	private void dispatchAll(List<MessageContext> ready) {
+		int count = ready.size();
+		int scheduled = 0;
+		try {
+			while (scheduled < count) {
+				final int n = Math.min(BULK_DISPATCH_SIZE, count - scheduled);
+				schedulingStage.execute(new Runnable() {
+					@Override
+					public void run() {
+						for (int i = 0; i < n; i++)
+							dispatch();
+					}
+				});
+				scheduled += n;
+			}
+		} catch (RuntimeException e) {
+			// E.g., the executor was shut down; fail as many messages as
+			// will not be dispatched
+			for (int i = count - 1; i >= 0 && scheduled < count; i--) {
+				MessageContext context = ready.get(i);
+				if (lanes.remove(context)) {
+					context.getCompletion().setThrowable(e);
+					scheduled++;
+				}
+			}
+		} finally {
+			ready.clear();
+		}
+	}
+
+	/**
+	 * Processes the next ready message. Called once for each message added to
+	 * the lanes, though not necessarily for that message.
+	 */
+	private void dispatch() {
+		boolean admitted;
+		try {
+			admitted = handlers.acquireDispatch(dispatchWakeup);
+		} catch (RuntimeException e) {
+			dropDispatch(e);
+			return;
+		}
+		// Otherwise retried through the wakeup, leaving the messages in their
+		// lanes
+		if (!admitted)
 			return;
+		MessageContext context = lanes.poll();
+		if (context == null || !processSafely(context))
+			handlers.cancelDispatch();
+	}
+
+	/**
+	 * Fails the next ready message when its dispatch cannot take place, rather
+	 * than leave it in its lane.
+	 */
+	private void dropDispatch(RuntimeException e) {
+		MessageContext context = lanes.poll();
+		if (context != null)
+			failDispatch(context, e);
+	}
+
+	/**
+	 * Completes a message whose dispatch cannot take place. After shutdown, a
+	 * gate can no longer wait, so the message is dropped like a delayed one.
+	 */
+	private void failDispatch(MessageContext context, RuntimeException e) {
+		if (shutdown && e instanceof RejectedExecutionException)
+			abandon(context);
+		else
+			fail(context, e);
+	}
+
+	/**
+	 * Processes the next message of a stripe once the dispatch gates admit
+	 * it. Until then, it waits at the head of the stripe, so the device's
+	 * later messages are not sent before it.
+	 *
+	 * @return {@code false} if the message waits until the stripe is resumed
+	 */
+	private boolean processStriped(MessageContext context,
+			final Runnable resume) {
+		boolean admitted;
+		try {
+			admitted = handlers.acquireDispatch(new GateWakeup() {
+				@Override
+				public void wake() {
+					resume.run();
+				}
+			});
+		} catch (RuntimeException e) {
+			failDispatch(context, e);
+			return true;
+		}
+		if (!admitted)
+			return false;
+		if (!processSafely(context))
+			handlers.cancelDispatch();
+		return true;
+	}
+
+	/**
+	 * Processes a message whose dispatch the gates admitted.
+	 *
+	 * @return {@code true} if the message took the admission, or
+	 *         {@code false} if it is not sent now and the admission must be
+	 *         cancelled
+	 */
+	private boolean processSafely(MessageContext context) {
+		try {
+			return process(context);
+		} catch (RuntimeException e) {
+			fail(context, e);
+			return false;
 		}
 	}
 
-	private void process(MessageContext context) {
+	private boolean process(MessageContext context) {
+		if (context.getCompletion().isDone())
+			return false;
 		context.setDelay(0);
 		handlers.filterMessageDequeue(context);
 		switch (context.getDecision()) {
 		case SEND:
 			if (context.getDelay() > 0) {
 				submit(context);
-			} else {
-				issue(context);
+				return false;
+			} else if (coalescer != null && !coalescer.remove(context)) {
+				return false; // Superseded by a newer message
 			}
-			return;
+			handlers.admitDispatch(context);
+			try {
+				forwardAdmitted(context);
+			} catch (RuntimeException e) {
+				fail(context, e);
+			}
+			return true;
 		case CANCEL:
-			context.getFutureResponse().setCancelled();
+			if (coalescer != null)
+				coalescer.remove(context);
+			context.getCompletion().setCancelled();
+			return false;
+		}
+		return false;
+	}
+
+	private void forwardAdmitted(MessageContext context) {
+		if (context.getCompletion().isDone()) {
+			handlers.releaseDispatch(context);
+		} else if (batcher != null && !shutdown) {
+			dispatched(context);
+			batcher.add(context);
+		} else {
+			dispatched(context);
+			issue(context);
+		}
+	}
+
+	private void issue(final MessageContext context) {
+		// A stripe holds its thread until the send completes
+		if (gcm instanceof NonBlockingGcmManager && stripes == null) {
+			inFlight.incrementAndGet();
+			try {
+				((NonBlockingGcmManager) gcm).pushMessage(context.unwrap(),
+						new SingleCallback(context));
+			} catch (RuntimeException e) {
+				inFlight.decrementAndGet();
+				throw e;
+			}
+			return;
+		}
+		if (transportStage == null || stripes != null) {
+			send(context);
+			return;
+		}
+
+		transportStage.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					send(context);
+				} catch (RuntimeException e) {
+					fail(context, e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Sends a message with a blocking request.
+	 */
+	private void send(MessageContext context) {
+		List<MessageContext> contexts = Collections.singletonList(context);
+		Response response;
+		inFlight.incrementAndGet();
+		try {
+			response = gcm.pushMessage(context.unwrap());
+		} catch (Throwable throwable) {
+			inFlight.decrementAndGet();
+			handOff(contexts, failureTask(contexts, throwable), null);
 			return;
 		}
+		inFlight.decrementAndGet();
+		handOff(contexts,
+				responsesTask(contexts, Collections.singletonList(response)),
+				null);
 	}
 
-	private void issue(MessageContext context) {
+	private void issueMulticast(List<MessageContext> batch) {
+		final List<MessageContext> contexts = removeCancelled(batch);
+		if (contexts.isEmpty())
+			return;
+		if (contexts.size() == 1) {
+			issueSafely(contexts.get(0));
+			return;
+		}
+
+		final List<Message> messages = new ArrayList<Message>(contexts.size());
+		for (MessageContext context : contexts) {
+			messages.add(context.unwrap());
+		}
+
+		if (gcm instanceof NonBlockingGcmManager) {
+			inFlight.addAndGet(contexts.size());
+			try {
+				((NonBlockingGcmManager) gcm).pushMulticast(messages,
+						new MulticastCallback(contexts));
+			} catch (RuntimeException e) {
+				inFlight.addAndGet(-contexts.size());
+				handleFailure(contexts, e);
+			}
+			return;
+		}
+
+		if (transportStage == null) {
+			sendMulticast(contexts, messages);
+			return;
+		}
+
 		try {
-			Response response = gcm.pushMessage(context.unwrap());
-			handleResponse(context, response);
+			transportStage.execute(new Runnable() {
+				@Override
+				public void run() {
+					sendMulticast(contexts, messages);
+				}
+			});
 		} catch (RuntimeException e) {
-			throw e;
+			handleFailure(contexts, e);
+		}
+	}
+
+	/**
+	 * Sends a group of messages with a blocking multicast request.
+	 */
+	private void sendMulticast(List<MessageContext> contexts,
+			List<Message> messages) {
+		List<Response> responses;
+		inFlight.addAndGet(contexts.size());
+		try {
+			responses = ((MulticastGcmManager) gcm).pushMulticast(messages);
 		} catch (Throwable throwable) {
-			handleThrowable(context, throwable);
+			inFlight.addAndGet(-contexts.size());
+			handOff(contexts, failureTask(contexts, throwable), null);
+			return;
+		}
+		inFlight.addAndGet(-contexts.size());
+		handOff(contexts, responsesTask(contexts, responses), null);
+	}
+
+	/**
+	 * Runs the handling of the outcome of a request on the handler stage, if
+	 * configured, or else on the fallback executor, or else on the calling
+	 * thread if there is no fallback. A stripe always runs it on its own
+	 * thread, so the handlers, e.g., a device throttle, see the outcome
+	 * before the next message for the device is processed.
+	 */
+	private void handOff(List<MessageContext> contexts, Runnable task,
+			Executor fallback) {
+		Executor stage = (handlerStage != null) ? handlerStage : fallback;
+		if (stage == null || stripes != null) {
+			task.run();
+			return;
+		}
+		try {
+			stage.execute(task);
+		} catch (RejectedExecutionException e) {
+			handleFailure(contexts, e);
+		}
+	}
+
+	private Runnable responsesTask(final List<MessageContext> contexts,
+			final List<Response> responses) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				handleResponses(contexts, responses);
+			}
+		};
+	}
+
+	private Runnable failureTask(final List<MessageContext> contexts,
+			final Throwable throwable) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				handleFailure(contexts, throwable);
+			}
+		};
+	}
+
+	/**
+	 * Drops messages cancelled or shed while waiting for their multicast group
+	 * to fill.
+	 */
+	private List<MessageContext> removeCancelled(List<MessageContext> contexts) {
+		List<MessageContext> live = null;
+		for (int i = 0; i < contexts.size(); i++) {
+			MessageContext context = contexts.get(i);
+			if (context.getCompletion().isDone()) {
+				handlers.releaseDispatch(context);
+				if (live == null)
+					live = new ArrayList<MessageContext>(contexts.subList(0, i));
+			} else if (live != null) {
+				live.add(context);
+			}
+		}
+		return (live == null) ? contexts : live;
+	}
+
+	private void issueSafely(MessageContext context) {
+		try {
+			issue(context);
+		} catch (RuntimeException e) {
+			fail(context, e);
+		}
+	}
+
+	private void handleResponses(List<MessageContext> contexts,
+			List<Response> responses) {
+		for (int i = 0; i < contexts.size(); i++) {
+			try {
+				handleResponse(contexts.get(i), responses.get(i));
+			} catch (RuntimeException e) {
+				fail(contexts.get(i), e);
+			}
+		}
+	}
+
+	private void handleFailure(List<MessageContext> contexts,
+			Throwable throwable) {
+		for (MessageContext context : contexts) {
+			if (throwable instanceof RuntimeException) {
+				fail(context, (RuntimeException) throwable);
+				continue;
+			}
+			try {
+				handleThrowable(context, throwable);
+			} catch (RuntimeException e) {
+				fail(context, e);
+			}
 		}
 	}
 
@@ -136,7 +1136,7 @@ class AsyncGcmManagerImpl implements AsyncGcmManager {
 		handlers.handleResponse(context);
 		switch (context.getDecision()) {
 		case RETURN:
-			context.getFutureResponse().setResponse(response);
+			context.getCompletion().setResponse(response);
 			return;
 		case RETRY:
 			submit(new MessageContext(context, messageContext.unwrap()));
@@ -151,7 +1151,7 @@ class AsyncGcmManagerImpl implements AsyncGcmManager {
 		handlers.handleThrowable(context);
 		switch (context.getDecision()) {
 		case RETURN:
-			context.getFutureResponse().setThrowable(throwable);
+			context.getCompletion().setThrowable(throwable);
 			return;
 		case RETRY:
 			submit(new MessageContext(context, messageContext.unwrap()));
@@ -159,29 +1159,120 @@ class AsyncGcmManagerImpl implements AsyncGcmManager {
 		}
 	}
 
-	private class MessageRunnable implements Runnable {
+	private void fail(MessageContext context, RuntimeException e) {
+		LOGGER.warn(
+				"Unexpected RuntimeException while processing GCM message.",
+				e);
+		try {
+			handlers.releaseDispatch(context);
+			context.getCompletion().setThrowable(e);
+		} catch (RuntimeException e2) {
+			LOGGER.warn(
+					"Unable to return RuntimeException via Completion.  Dropping exception.",
+					e2);
+		}
+	}
+
+	/**
+	 * Hands the outcome of a non-blocking request to the handler stage, or
+	 * else back to the scheduling stage, so handlers never run on the
+	 * transport's I/O threads.
+	 */
+	private abstract class TransportCallback<T> implements GcmCallback<T> {
+
+		private final List<MessageContext> contexts;
+
+		protected TransportCallback(List<MessageContext> contexts) {
+			this.contexts = contexts;
+		}
+
+		protected abstract List<Response> asList(T result);
+
+		@Override
+		public void completed(final T result) {
+			inFlight.addAndGet(-contexts.size());
+			handOff(contexts, new Runnable() {
+				@Override
+				public void run() {
+					handleResponses(contexts, asList(result));
+				}
+			}, schedulingStage);
+		}
+
+		@Override
+		public void failed(Throwable throwable) {
+			inFlight.addAndGet(-contexts.size());
+			handOff(contexts, failureTask(contexts, throwable), schedulingStage);
+		}
+	}
+
+	private class SingleCallback extends TransportCallback<Response> {
+
+		public SingleCallback(MessageContext context) {
+			super(Collections.singletonList(context));
+		}
+
+		@Override
+		protected List<Response> asList(Response result) {
+			return Collections.singletonList(result);
+		}
+	}
+
+	private class MulticastCallback extends TransportCallback<List<Response>> {
+
+		public MulticastCallback(List<MessageContext> contexts) {
+			super(contexts);
+		}
+
+		@Override
+		protected List<Response> asList(List<Response> result) {
+			return result;
+		}
+	}
+
+	/**
+	 * The retry of a dispatch not admitted by a gate, whose timed tasks are
+	 * held by the {@link DelayScheduler}.
+	 */
+	private abstract class GateWakeup implements DispatchGate.Wakeup {
+
+		@Override
+		public void schedule(Runnable task, long delayMillis) {
+			delayScheduler.schedule(task, delayMillis);
+		}
+	}
+
+	/**
+	 * A message waiting in the {@link DelayScheduler}. Also the handle by
+	 * which its completion cancels it, so that the delayed count stays exact.
+	 */
+	private class DelayedMessage implements Runnable, DelayScheduler.Timeout {
 
 		private final MessageContext context;
 
-		public MessageRunnable(MessageContext context) {
+		private volatile DelayScheduler.Timeout timeout;
+
+		public DelayedMessage(MessageContext context) {
 			this.context = context;
 		}
 
+		@Override
+		public boolean cancel() {
+			DelayScheduler.Timeout timeout = this.timeout;
+			if (timeout == null || !timeout.cancel())
+				return false;
+			delayed.decrementAndGet();
+			return true;
+		}
+
 		@Override
 		public void run() {
-			try {
-				AsyncGcmManagerImpl.this.process(context);
-			} catch (RuntimeException e) {
-				LOGGER.warn(
-						"Unexpected RuntimeException while processing GCM message.",
-						e);
-				try {
-					context.getFutureResponse().setThrowable(e);
-				} catch (RuntimeException e2) {
-					LOGGER.warn(
-							"Unable to return RuntimeException via Future.  Dropping exception.",
-							e2);
-				}
+			delayed.decrementAndGet();
+			if (stripes != null) {
+				stripes.add(context);
+			} else {
+				lanes.add(context);
+				dispatch();
 			}
 		}
 
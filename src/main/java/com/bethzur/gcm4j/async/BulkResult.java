@@ -0,0 +1,201 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.bethzur.gcm4j.ResponseType;
+
+/**
+ * The aggregate outcome of the messages pushed by
+ * {@link AsyncGcmManager#pushMessages(Iterable, Priority, ResultListener)},
+ * counted by {@link ResponseType} as the messages complete. Messages that
+ * failed with an exception, including those rejected when pushed, are counted
+ * as failed. The counts are read without locking, so they are approximate
+ * until {@link #isDone()}.
+ */
+public class BulkResult {
+
+	private final AtomicLong submitted = new AtomicLong();
+
+	private final AtomicLong completed = new AtomicLong();
+
+	private final AtomicLongArray responses = new AtomicLongArray(
+			ResponseType.values().length);
+
+	private final AtomicLong failed = new AtomicLong();
+
+	private final AtomicLong cancelled = new AtomicLong();
+
+	private volatile boolean sealed;
+
+	BulkResult() {
+	}
+
+	/**
+	 * Returns the number of messages pushed.
+	 *
+	 * @return the number of messages
+	 */
+	public long getSubmitted() {
+		return submitted.get();
+	}
+
+	/**
+	 * Returns the number of messages that have completed.
+	 *
+	 * @return the number of completed messages
+	 */
+	public long getCompleted() {
+		return completed.get();
+	}
+
+	/**
+	 * Returns the number of messages that completed with a response of the
+	 * specified type.
+	 *
+	 * @param type
+	 *            the response type
+	 * @return the number of responses of the type
+	 */
+	public long getCount(ResponseType type) {
+		return responses.get(type.ordinal());
+	}
+
+	/**
+	 * Returns the number of messages that completed with a response, by
+	 * response type. Types without responses are omitted.
+	 *
+	 * @return the number of responses of each type
+	 */
+	public Map<ResponseType, Long> getCounts() {
+		Map<ResponseType, Long> counts = new EnumMap<ResponseType, Long>(
+				ResponseType.class);
+		for (ResponseType type : ResponseType.values()) {
+			long count = responses.get(type.ordinal());
+			if (count > 0)
+				counts.put(type, count);
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the number of messages that failed with an exception or were
+	 * rejected.
+	 *
+	 * @return the number of failed messages
+	 */
+	public long getFailed() {
+		return failed.get();
+	}
+
+	/**
+	 * Returns the number of messages that were cancelled, e.g., by a filter.
+	 *
+	 * @return the number of cancelled messages
+	 */
+	public long getCancelled() {
+		return cancelled.get();
+	}
+
+	/**
+	 * Returns whether all pushed messages have completed.
+	 *
+	 * @return {@code true} if all messages have completed
+	 */
+	public boolean isDone() {
+		return sealed && completed.get() == submitted.get();
+	}
+
+	/**
+	 * Blocks until all pushed messages have completed, the timeout elapses, or
+	 * the current thread is interrupted, whichever happens first.
+	 *
+	 * @param timeout
+	 *            the longest time to wait
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return {@code true} if all messages completed, {@code false} if the
+	 *         timeout elapsed first
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean awaitCompletion(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (this) {
+			while (!isDone()) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0)
+					return false;
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("BulkResult(submitted=%d, completed=%d, responses=%s, failed=%d, cancelled=%d)",
+						getSubmitted(), getCompleted(), getCounts(),
+						getFailed(), getCancelled());
+	}
+
+	/**
+	 * Counts a message taken from the iterable.
+	 */
+	void submitted() {
+		submitted.incrementAndGet();
+	}
+
+	/**
+	 * Marks the end of the push, after which no more messages are counted.
+	 */
+	void seal() {
+		synchronized (this) {
+			sealed = true;
+			notifyAll();
+		}
+	}
+
+	void recordResponse(ResponseType type) {
+		responses.incrementAndGet(type.ordinal());
+		recordCompleted();
+	}
+
+	void recordThrowable() {
+		failed.incrementAndGet();
+		recordCompleted();
+	}
+
+	void recordCancelled() {
+		cancelled.incrementAndGet();
+		recordCompleted();
+	}
+
+	private void recordCompleted() {
+		if (completed.incrementAndGet() == submitted.get() && sealed) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bethzur.gcm4j.Message;
+
+/**
+ * Tracks the pending (queued or delayed) message for each registration id
+ * and collapse key. When a newer message for the same pair becomes pending,
+ * the older one is rejected with a {@link CollapsedMessageException} instead
+ * of being sent, which also removes it from the {@link DelayScheduler} if it
+ * is delayed. Messages are ordered by the time they were pushed, so a
+ * retry of an older message is collapsed if a newer one is already pending.
+ * <p>
+ * A message stops being pending when it is dequeued to be sent. The map is
+ * updated with compare-and-set operations, so a message is either sent or
+ * collapsed, never both.
+ */
+class CollapseKeyCoalescer {
+	static final String CONTEXT_KEY = CollapseKeyCoalescer.class
+			.getCanonicalName();
+
+	private final ConcurrentMap<Key, MessageContext> pending;
+
+	private final AtomicLong sequence;
+
+	/**
+	 * The map size at which completed entries, e.g., of messages cancelled
+	 * while delayed, are next purged.
+	 */
+	private final AtomicInteger purgeThreshold;
+
+	/**
+	 * Constructs a new, empty coalescer.
+	 */
+	public CollapseKeyCoalescer() {
+		this.pending = new ConcurrentHashMap<Key, MessageContext>();
+		this.sequence = new AtomicLong();
+		this.purgeThreshold = new AtomicInteger(1024);
+	}
+
+	/**
+	 * Records the message as pending, collapsing whichever of it and the
+	 * pending message for the same key was pushed earlier.
+	 *
+	 * @param context
+	 *            the context of the message becoming pending
+	 * @return {@code true} if the message remains pending; {@code false} if
+	 *         it was collapsed
+	 */
+	public boolean add(MessageContext context) {
+		Key key = new Key(context.unwrap());
+		long seq = sequence(context);
+		while (true) {
+			MessageContext current = pending.putIfAbsent(key, context);
+			if (current == null)
+				break;
+			if (current == context || current.getCompletion().isDone()
+					|| current.getCompletion() == context.getCompletion()) {
+				if (pending.replace(key, current, context))
+					break;
+			} else if (sequence(current) > seq) {
+				collapse(context, current.unwrap());
+				return false;
+			} else if (pending.replace(key, current, context)) {
+				collapse(current, context.unwrap());
+				break;
+			}
+		}
+		if (pending.size() >= purgeThreshold.get())
+			purge();
+		return true;
+	}
+
+	/**
+	 * Records that the message is no longer pending, because it is about to
+	 * be sent or has been cancelled.
+	 *
+	 * @param context
+	 *            the context of the message
+	 * @return {@code true} if the message was pending; {@code false} if it
+	 *         has been collapsed
+	 */
+	public boolean remove(MessageContext context) {
+		return pending.remove(new Key(context.unwrap()), context);
+	}
+
+	private long sequence(MessageContext context) {
+		Long seq = context.get(CONTEXT_KEY, Long.class);
+		if (seq == null) {
+			seq = sequence.incrementAndGet();
+			context.put(CONTEXT_KEY, seq);
+		}
+		return seq;
+	}
+
+	private static void collapse(MessageContext context, Message newer) {
+		// Also drops the older message from the scheduler, if delayed
+		context.getCompletion().reject(new CollapsedMessageException(newer));
+	}
+
+	private void purge() {
+		int threshold = purgeThreshold.get();
+		if (!purgeThreshold.compareAndSet(threshold, Integer.MAX_VALUE))
+			return; // Another thread is purging
+		Iterator<Map.Entry<Key, MessageContext>> it = pending.entrySet()
+				.iterator();
+		while (it.hasNext()) {
+			Map.Entry<Key, MessageContext> entry = it.next();
+			// Only if not replaced in the meantime
+			if (entry.getValue().getCompletion().isDone())
+				pending.remove(entry.getKey(), entry.getValue());
+		}
+		purgeThreshold.set(Math.max(1024, 2 * pending.size()));
+	}
+
+	/**
+	 * The registration id and collapse key of a message.
+	 */
+	private static class Key {
+
+		private final String registrationId;
+
+		private final String collapseKey;
+
+		public Key(Message message) {
+			this.registrationId = message.getRegistrationId();
+			this.collapseKey = message.getCollapseKey();
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * registrationId.hashCode() + collapseKey.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return registrationId.equals(other.registrationId)
+					&& collapseKey.equals(other.collapseKey);
+		}
+	}
+}
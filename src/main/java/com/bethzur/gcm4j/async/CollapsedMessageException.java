@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import com.bethzur.gcm4j.Message;
+
+/**
+ * Indicates that a pending message was not sent because a newer message with
+ * the same registration id and collapse key superseded it. GCM would only
+ * have delivered the newer one anyway.
+ *
+ * @see AsyncGcmManagerBuilder#coalesceByCollapseKey()
+ */
+public class CollapsedMessageException extends Exception {
+
+	private static final long serialVersionUID = -2870513642419766126L;
+
+	private final transient Message supersedingMessage;
+
+	/**
+	 * Constructs a new {@code CollapsedMessageException} for a message
+	 * superseded by the specified message.
+	 *
+	 * @param supersedingMessage
+	 *            the newer message sent instead
+	 */
+	public CollapsedMessageException(Message supersedingMessage) {
+		super("Message was superseded by a newer message with the same collapse key.");
+		this.supersedingMessage = supersedingMessage;
+	}
+
+	/**
+	 * Gets the newer message sent instead of the collapsed one.
+	 *
+	 * @return the superseding message, or {@code null} if this exception was
+	 *         deserialized
+	 */
+	public Message getSupersedingMessage() {
+		return supersedingMessage;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import com.bethzur.gcm4j.Response;
+
+/**
+ * Receives the outcome of a queued message. Only the first outcome set is
+ * delivered; later calls are ignored.
+ *
+ * @see FutureResponse
+ * @see ListenerCompletion
+ */
+interface Completion {
+
+	/**
+	 * Notified once when a completion receives its outcome.
+	 */
+	static interface Listener {
+		/**
+		 * Called after the outcome of the completion has been set.
+		 *
+		 * @param completion
+		 *            the completion
+		 */
+		void done(Completion completion);
+	}
+
+	/**
+	 * Completes with the response from the GCM service.
+	 *
+	 * @param response
+	 *            the response
+	 */
+	void setResponse(Response response);
+
+	/**
+	 * Completes with the exception that prevented the message from being
+	 * sent.
+	 *
+	 * @param throwable
+	 *            the exception
+	 */
+	void setThrowable(Throwable throwable);
+
+	/**
+	 * Completes with the message cancelled, e.g., by a filter.
+	 */
+	void setCancelled();
+
+	/**
+	 * Completes with the exception and removes the pending task of the
+	 * message from the scheduler, dropping a message that is still queued.
+	 *
+	 * @param throwable
+	 *            the exception
+	 */
+	void reject(Throwable throwable);
+
+	/**
+	 * Returns whether the outcome has been set, e.g., because the message was
+	 * cancelled, in which case it should not be sent.
+	 *
+	 * @return {@code true} if the outcome has been set
+	 */
+	boolean isDone();
+
+	/**
+	 * Records the delayed task that will next process the message, so that
+	 * cancelling the message can remove it from the {@link DelayScheduler}.
+	 *
+	 * @param task
+	 *            the handle of the delayed task
+	 */
+	void setPendingTask(DelayScheduler.Timeout task);
+}
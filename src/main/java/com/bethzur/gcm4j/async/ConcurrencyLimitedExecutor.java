@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executor that runs at most a fixed number of tasks at once on an unbounded
+ * executor, e.g., one starting a virtual thread per task. Each task takes a
+ * permit from a {@link Semaphore} on its own thread before running, so
+ * callers never block and tasks beyond the limit wait, cheaply if their
+ * threads are virtual, until a permit is free.
+ */
+class ConcurrencyLimitedExecutor implements Executor {
+
+	private final Executor executor;
+
+	private final Semaphore permits;
+
+	/**
+	 * Constructs a new executor.
+	 *
+	 * @param executor
+	 *            the executor providing the threads
+	 * @param maxConcurrent
+	 *            the maximum number of tasks running at once
+	 */
+	public ConcurrencyLimitedExecutor(Executor executor, int maxConcurrent) {
+		if (maxConcurrent < 1)
+			throw new IllegalArgumentException(
+					"Argument 'maxConcurrent' must be positive.");
+		this.executor = executor;
+		this.permits = new Semaphore(maxConcurrent);
+	}
+
+	@Override
+	public void execute(final Runnable task) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				permits.acquireUninterruptibly();
+				try {
+					task.run();
+				} finally {
+					permits.release();
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+
+/**
+ * {@link ResultListener} that counts the outcome of each message of a bulk
+ * push in its {@link BulkResult} and then reports it to another listener, if
+ * any.
+ */
+class CountingResultListener implements ResultListener {
+
+	private final BulkResult result;
+
+	private final ResultListener delegate;
+
+	/**
+	 * Constructs a new listener counting in the specified result.
+	 *
+	 * @param result
+	 *            the aggregate result in which to count the outcomes
+	 * @param delegate
+	 *            the listener to notify after counting, or {@code null}
+	 */
+	public CountingResultListener(BulkResult result, ResultListener delegate) {
+		this.result = result;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void onResponse(Message message, Response response) {
+		result.recordResponse(response.getResponseType());
+		if (delegate != null)
+			delegate.onResponse(message, response);
+	}
+
+	@Override
+	public void onThrowable(Message message, Throwable throwable) {
+		result.recordThrowable();
+		if (delegate != null)
+			delegate.onThrowable(message, throwable);
+	}
+
+	@Override
+	public void onCancelled(Message message) {
+		result.recordCancelled();
+		if (delegate != null)
+			delegate.onCancelled(message);
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.List;
+
+/**
+ * Holds delayed messages, e.g., those backed off by a throttle or waiting for
+ * a multicast group to fill, until their delay expires. Due tasks are handed
+ * to the executor that sends messages; they must not be run on the calling
+ * thread.
+ *
+ * @see HashedWheelDelayScheduler
+ * @see ExecutorDelayScheduler
+ */
+public interface DelayScheduler {
+
+	/**
+	 * Handle for a scheduled task.
+	 */
+	static interface Timeout {
+		/**
+		 * Cancels the task, releasing it from the scheduler, if it has not yet
+		 * been handed off to run.
+		 *
+		 * @return {@code true} if the task was cancelled
+		 */
+		boolean cancel();
+	}
+
+	/**
+	 * Schedules a task to run once the specified delay expires.
+	 *
+	 * @param task
+	 *            the task to run
+	 * @param delayMillis
+	 *            the delay in milliseconds
+	 * @return the handle for cancelling the task
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 *             if the scheduler has been shut down
+	 */
+	Timeout schedule(Runnable task, long delayMillis);
+
+	/**
+	 * Stops the scheduler. Tasks that have not yet expired are not run.
+	 *
+	 * @return the tasks that had not yet expired
+	 */
+	List<Runnable> shutdown();
+}
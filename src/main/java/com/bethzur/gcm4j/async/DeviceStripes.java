@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serializes the dispatch of ready messages per device. Each registration id
+ * hashes to a fixed stripe, whose FIFO queue is drained by at most one
+ * executor task at a time. Messages for a device are therefore processed one
+ * after another, in the order they became ready regardless of their
+ * {@link Priority}, and never concurrently on different threads. A message
+ * that must wait stays at the head of its stripe, without holding a thread,
+ * until the processor resumes the stripe.
+ */
+class DeviceStripes {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(DeviceStripes.class);
+
+	/**
+	 * Processes the ready messages of a stripe.
+	 */
+	static interface Processor {
+		/**
+		 * Processes a ready message, unless it must wait, e.g., for a
+		 * dispatch gate. Must not throw.
+		 *
+		 * @param context
+		 *            the context of the message
+		 * @param resume
+		 *            the task draining the stripe again, to be run once a
+		 *            waiting message may proceed
+		 * @return {@code true} if the message was processed, or
+		 *         {@code false} if it waits at the head of the stripe until
+		 *         the resume task is run
+		 */
+		boolean process(MessageContext context, Runnable resume);
+	}
+
+	private final Stripe[] stripes;
+
+	private final Executor executor;
+
+	private final Processor processor;
+
+	/**
+	 * Constructs a new set of stripes.
+	 *
+	 * @param count
+	 *            the number of stripes
+	 * @param executor
+	 *            the executor on which the stripes are drained
+	 * @param processor
+	 *            the processor of the ready messages
+	 */
+	public DeviceStripes(int count, Executor executor, Processor processor) {
+		this.stripes = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new Stripe();
+		}
+		this.executor = executor;
+		this.processor = processor;
+	}
+
+	/**
+	 * Adds a ready message to the stripe of its device, scheduling the stripe
+	 * to be drained if it is idle.
+	 *
+	 * @param context
+	 *            the context of the message
+	 */
+	public void add(MessageContext context) {
+		int hash = context.unwrap().getRegistrationId().hashCode();
+		hash ^= (hash >>> 16);
+		stripes[(hash & Integer.MAX_VALUE) % stripes.length].add(context);
+	}
+
+	/**
+	 * A single-consumer queue of ready messages.
+	 */
+	private class Stripe implements Runnable {
+
+		private final Queue<MessageContext> queue;
+
+		private final AtomicBoolean scheduled;
+
+		private final Runnable resume = new Runnable() {
+			@Override
+			public void run() {
+				reschedule();
+			}
+		};
+
+		public Stripe() {
+			this.queue = new ConcurrentLinkedQueue<MessageContext>();
+			this.scheduled = new AtomicBoolean(false);
+		}
+
+		void add(MessageContext context) {
+			queue.add(context);
+			if (!scheduled.compareAndSet(false, true))
+				return;
+			try {
+				executor.execute(this);
+			} catch (RuntimeException e) {
+				scheduled.set(false);
+				queue.remove(context);
+				throw e;
+			}
+		}
+
+		/**
+		 * Processes one message, then yields the thread so that other stripes
+		 * are not starved.
+		 */
+		@Override
+		public void run() {
+			MessageContext context = queue.peek();
+			if (context != null) {
+				// A waiting message keeps the stripe scheduled until resumed
+				if (!processor.process(context, resume))
+					return;
+				queue.poll();
+			}
+
+			scheduled.set(false);
+			// Recheck, as adds that saw the stripe scheduled did not reschedule
+			if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+				return;
+			reschedule();
+		}
+
+		private void reschedule() {
+			MessageContext context;
+			try {
+				executor.execute(this);
+			} catch (RuntimeException e) {
+				LOGGER.warn(
+						"Unable to reschedule device stripe.  Failing its queued messages.",
+						e);
+				while ((context = queue.poll()) != null) {
+					context.getCompletion().setThrowable(e);
+				}
+				scheduled.set(false);
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DelayScheduler} that schedules delayed tasks directly on the
+ * {@link ScheduledExecutorService} that sends messages.
+ * <p>
+ * Each insert costs O(log n) under the executor's queue lock, which is fine
+ * for modest numbers of delayed messages. Prefer
+ * {@link HashedWheelDelayScheduler} when many messages may be backed off at
+ * once. Cancelled tasks are removed from the queue of a
+ * {@link ScheduledThreadPoolExecutor}. The executor is not owned by this
+ * scheduler, so {@link #shutdown()} only cancels the tasks scheduled through
+ * it, leaving the executor running.
+ */
+public class ExecutorDelayScheduler implements DelayScheduler {
+
+	private final ScheduledExecutorService executor;
+
+	private final Set<ScheduledTask> scheduled;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * Constructs a new scheduler backed by the specified executor.
+	 *
+	 * @param executor
+	 *            the executor on which to schedule and run the tasks
+	 */
+	public ExecutorDelayScheduler(ScheduledExecutorService executor) {
+		this.executor = executor;
+		this.scheduled = Collections
+				.newSetFromMap(new ConcurrentHashMap<ScheduledTask, Boolean>());
+		this.shutdown = false;
+	}
+
+	@Override
+	public Timeout schedule(Runnable task, long delayMillis) {
+		if (shutdown)
+			throw new RejectedExecutionException(
+					"Scheduler has been shut down.");
+		ScheduledTask scheduledTask = new ScheduledTask(task);
+		scheduled.add(scheduledTask);
+		try {
+			scheduledTask.future = executor.schedule(scheduledTask,
+					delayMillis, TimeUnit.MILLISECONDS);
+		} catch (RuntimeException e) {
+			scheduled.remove(scheduledTask);
+			throw e;
+		}
+		return scheduledTask;
+	}
+
+	@Override
+	public List<Runnable> shutdown() {
+		shutdown = true;
+		List<Runnable> unexpired = new ArrayList<Runnable>();
+		for (ScheduledTask task : scheduled) {
+			if (scheduled.remove(task)) {
+				task.removeFromExecutor();
+				unexpired.add(task.task);
+			}
+		}
+		return unexpired;
+	}
+
+	/**
+	 * A task scheduled on the executor. Whichever of running, cancelling, or
+	 * shutting down first removes it from the set of scheduled tasks wins.
+	 */
+	private class ScheduledTask implements Runnable, Timeout {
+
+		private final Runnable task;
+
+		private volatile ScheduledFuture<?> future;
+
+		public ScheduledTask(Runnable task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			if (scheduled.remove(this))
+				task.run();
+		}
+
+		@Override
+		public boolean cancel() {
+			if (!scheduled.remove(this))
+				return false;
+			removeFromExecutor();
+			return true;
+		}
+
+		void removeFromExecutor() {
+			ScheduledFuture<?> future = this.future;
+			if (future == null)
+				return; // Still being scheduled; will not run
+			future.cancel(false);
+			if (executor instanceof ScheduledThreadPoolExecutor
+					&& future instanceof Runnable)
+				((ScheduledThreadPoolExecutor) executor)
+						.remove((Runnable) future);
+		}
+	}
+}
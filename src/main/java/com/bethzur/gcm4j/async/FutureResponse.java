@@ -15,97 +15,92 @@
  */
 package com.bethzur.gcm4j.async;
 
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-
 import com.bethzur.gcm4j.Response;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
- * Future implementation for {@link Response} objects. This class does not
- * support canceling the underlying task, i.e., {@link #cancel(boolean)} always
- * returns {@code false}.
+ * {@link ListenableFuture} implementation for {@link Response} objects.
+ * Listeners added via {@link #addListener(Runnable, java.util.concurrent.Executor)}
+ * run once the response or exception is available.
+ * <p>
+ * Cancelling the future drops the message. If it is waiting in the
+ * {@link DelayScheduler}, e.g., delayed by a back-off throttle, the delayed
+ * task is cancelled and released by the scheduler. If a request is already in flight, it is
+ * not interrupted, but its response is discarded and it is not retried.
  * 
  * @author David R. Bild
  * 
  */
-class FutureResponse implements Future<Response> {
-
-	private final static int WAITING = 0;
-	private final static int DONE = 1;
-	private final static int CANCELLED = 2;
-
-	private final CountDownLatch latch;
+class FutureResponse extends AbstractFuture<Response> implements Completion {
 
-	private volatile int state;
+	private final Completion.Listener listener;
 
-	private volatile Response response;
+	private volatile DelayScheduler.Timeout pendingTask;
 
-	private volatile Throwable exception;
-
-	public FutureResponse() {
-		latch = new CountDownLatch(1);
-		state = WAITING;
+	/**
+	 * Constructs a new future.
+	 * 
+	 * @param listener
+	 *            the listener to notify when done, or {@code null}
+	 */
+	public FutureResponse(Completion.Listener listener) {
+		this.listener = listener;
 	}
 
 	@Override
 	public boolean cancel(boolean mayInterruptIfRunning) {
-		return false;
+		if (!super.cancel(false))
+			return false;
+		removePendingTask();
+		done();
+		return true;
 	}
 
-	void setCancelled() {
-		state = CANCELLED;
-		latch.countDown();
-	}
-
-	void setResponse(Response response) {
-		this.response = response;
-		state = DONE;
-		latch.countDown();
+	@Override
+	public void setCancelled() {
+		if (super.cancel(false))
+			done();
 	}
 
-	void setThrowable(Throwable exception) {
-		this.exception = exception;
-		state = DONE;
-		latch.countDown();
+	@Override
+	public void setResponse(Response response) {
+		if (set(response))
+			done();
 	}
 
 	@Override
-	public boolean isCancelled() {
-		return (state == CANCELLED);
+	public void setThrowable(Throwable exception) {
+		if (setException(exception))
+			done();
 	}
 
 	@Override
-	public Response get() throws InterruptedException, ExecutionException,
-			CancellationException {
-		latch.await();
-		return innerGet();
+	public void reject(Throwable exception) {
+		if (setException(exception)) {
+			removePendingTask();
+			done();
+		}
 	}
 
 	@Override
-	public Response get(long timeout, TimeUnit unit)
-			throws InterruptedException, ExecutionException, TimeoutException,
-			CancellationException {
-		latch.await(timeout, unit);
-		return innerGet();
+	public void setPendingTask(DelayScheduler.Timeout task) {
+		pendingTask = task;
+		// Completed before the task was recorded
+		if (isDone())
+			removePendingTask();
 	}
 
-	private Response innerGet() throws ExecutionException,
-			CancellationException {
-		if (isCancelled())
-			throw new CancellationException();
-		else if (exception != null)
-			throw new ExecutionException(exception);
-		else
-			return response;
+	private void removePendingTask() {
+		DelayScheduler.Timeout task = pendingTask;
+		pendingTask = null;
+		if (task != null)
+			task.cancel();
 	}
 
-	@Override
-	public boolean isDone() {
-		return (state == DONE);
+	private void done() {
+		if (listener != null)
+			listener.done(this);
 	}
 
 }
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * {@link DelayScheduler} backed by a hierarchical hashed timing wheel, the
+ * default for {@link AsyncGcmManager}s.
+ * <p>
+ * Time advances in ticks of a configurable resolution. Tasks are kept in five
+ * wheels of 64 slots each, the first covering the next 64 ticks, the second
+ * the next 64<sup>2</sup> ticks in steps of 64, and so on. Scheduling and
+ * cancelling a task are O(1): the task is linked into or out of a slot. Each
+ * tick expires the tasks in one slot of the first wheel. When the first wheel
+ * wraps, the next slot of the second wheel is redistributed into the first, so
+ * each task is moved at most four times before it expires. With the default
+ * 10 millisecond tick, the wheels cover about 124 days; tasks delayed for
+ * longer are parked in the last slot and placed again when it is reached.
+ * <p>
+ * Callers do not contend on a lock. New and cancelled tasks are handed over
+ * through lock-free queues to a single timer thread, which owns the wheels and
+ * passes due tasks to the executor that sends messages. A due task that the
+ * executor rejects, e.g., because it is bounded and full, is run on the timer
+ * thread instead, so the message it completes is never lost. Tasks run no
+ * earlier than their delay, and at most about one tick later while the timer
+ * thread keeps up. The timer thread is started by the first call to
+ * {@link #schedule(Runnable, long)}, so a scheduler that is never used does
+ * not tick.
+ * <p>
+ * Call {@link #shutdown()} to stop the timer thread.
+ */
+public class HashedWheelDelayScheduler implements DelayScheduler {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(HashedWheelDelayScheduler.class);
+
+	/**
+	 * The default tick resolution in milliseconds.
+	 */
+	public static final long DEFAULT_TICK_MILLIS = 10;
+
+	private static final int SLOT_BITS = 6;
+
+	private static final int SLOTS = 1 << SLOT_BITS;
+
+	private static final int MASK = SLOTS - 1;
+
+	private static final int LEVELS = 5;
+
+	/**
+	 * The number of ticks covered by all wheels together.
+	 */
+	private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+	private static final long MAX_DELAY_NANOS = Long.MAX_VALUE / 4;
+
+	private static final int PENDING = 0;
+
+	private static final int CANCELLED = 1;
+
+	private static final int EXPIRED = 2;
+
+	private static final AtomicIntegerFieldUpdater<Entry> STATE = AtomicIntegerFieldUpdater
+			.newUpdater(Entry.class, "state");
+
+	private final Executor executor;
+
+	private final long tickNanos;
+
+	private final long startNanos;
+
+	/**
+	 * The heads of the task lists of each slot of each wheel. Accessed only
+	 * by the timer thread.
+	 */
+	private final Entry[][] wheels;
+
+	private final Queue<Entry> added;
+
+	private final Queue<Entry> cancelled;
+
+	private final Thread worker;
+
+	private final AtomicBoolean started;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * The last tick processed. Accessed only by the timer thread.
+	 */
+	private long tick;
+
+	/**
+	 * Constructs a new scheduler with the default tick resolution.
+	 *
+	 * @param executor
+	 *            the executor on which to run due tasks
+	 */
+	public HashedWheelDelayScheduler(Executor executor) {
+		this(executor, DEFAULT_TICK_MILLIS);
+	}
+
+	/**
+	 * Constructs a new scheduler with the specified tick resolution.
+	 *
+	 * @param executor
+	 *            the executor on which to run due tasks
+	 * @param tickMillis
+	 *            the tick resolution in milliseconds
+	 */
+	public HashedWheelDelayScheduler(Executor executor, long tickMillis) {
+		this(executor, tickMillis, new ThreadFactoryBuilder().setDaemon(true)
+				.setNameFormat("gcm4j-timing-wheel-%d").build());
+	}
+
+	/**
+	 * Constructs a new scheduler with the specified tick resolution and timer
+	 * thread factory.
+	 *
+	 * @param executor
+	 *            the executor on which to run due tasks
+	 * @param tickMillis
+	 *            the tick resolution in milliseconds
+	 * @param threadFactory
+	 *            the factory creating the timer thread
+	 */
+	public HashedWheelDelayScheduler(Executor executor, long tickMillis,
+			ThreadFactory threadFactory) {
+		if (tickMillis < 1)
+			throw new IllegalArgumentException(
+					"Argument 'tickMillis' must be positive.");
+		this.executor = executor;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+		this.startNanos = System.nanoTime();
+		this.wheels = new Entry[LEVELS][SLOTS];
+		this.added = new ConcurrentLinkedQueue<Entry>();
+		this.cancelled = new ConcurrentLinkedQueue<Entry>();
+		this.started = new AtomicBoolean(false);
+		this.shutdown = false;
+		this.tick = 0;
+		this.worker = threadFactory.newThread(new Runnable() {
+			@Override
+			public void run() {
+				work();
+			}
+		});
+	}
+
+	@Override
+	public Timeout schedule(Runnable task, long delayMillis) {
+		if (shutdown)
+			throw new RejectedExecutionException(
+					"Scheduler has been shut down.");
+		long delay = Math.min(
+				TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)),
+				MAX_DELAY_NANOS);
+		// Round up, so the task never runs early
+		long deadline = (System.nanoTime() - startNanos + delay + tickNanos - 1)
+				/ tickNanos;
+		Entry entry = new Entry(task, deadline);
+		added.add(entry);
+		if (!started.get() && started.compareAndSet(false, true))
+			worker.start();
+		if (shutdown && added.remove(entry))
+			throw new RejectedExecutionException(
+					"Scheduler has been shut down.");
+		return entry;
+	}
+
+	/**
+	 * Stops the timer thread, waiting for it to exit. Tasks that have not yet
+	 * expired are not run.
+	 *
+	 * @return the tasks that had not yet expired
+	 */
+	@Override
+	public List<Runnable> shutdown() {
+		shutdown = true;
+		LockSupport.unpark(worker);
+		boolean interrupted = false;
+		while (worker.isAlive() && worker != Thread.currentThread()) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		List<Runnable> unexpired = new ArrayList<Runnable>();
+		for (Entry[] wheel : wheels) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				for (Entry entry = wheel[slot]; entry != null; entry = entry.next) {
+					if (STATE.compareAndSet(entry, PENDING, CANCELLED))
+						unexpired.add(entry.task);
+				}
+				wheel[slot] = null;
+			}
+		}
+		Entry entry;
+		while ((entry = added.poll()) != null) {
+			if (STATE.compareAndSet(entry, PENDING, CANCELLED))
+				unexpired.add(entry.task);
+		}
+		cancelled.clear();
+		return unexpired;
+	}
+
+	private void work() {
+		while (!shutdown) {
+			long now = System.nanoTime() - startNanos;
+			removeCancelled();
+			transferAdded();
+			for (long target = now / tickNanos; tick < target;) {
+				tick++;
+				cascade();
+				expire();
+			}
+
+			long sleep = (tick + 1) * tickNanos - (System.nanoTime() - startNanos);
+			if (sleep > 0)
+				LockSupport.parkNanos(this, sleep);
+		}
+	}
+
+	private void removeCancelled() {
+		Entry entry;
+		while ((entry = cancelled.poll()) != null) {
+			if (entry.level >= 0)
+				unlink(entry);
+		}
+	}
+
+	private void transferAdded() {
+		Entry entry;
+		while ((entry = added.poll()) != null) {
+			if (entry.state == PENDING)
+				place(entry);
+		}
+	}
+
+	/**
+	 * Redistributes the current slot of each outer wheel that the inner wheel
+	 * just wrapped into.
+	 */
+	private void cascade() {
+		for (int level = 1; level < LEVELS; level++) {
+			int shift = SLOT_BITS * level;
+			if ((tick & ((1L << shift) - 1)) != 0)
+				return;
+			replace(detach(level, (int) (tick >>> shift) & MASK));
+		}
+	}
+
+	private void expire() {
+		replace(detach(0, (int) tick & MASK));
+	}
+
+	/**
+	 * Places each task of a detached list again, running those that are due.
+	 */
+	private void replace(Entry entry) {
+		while (entry != null) {
+			Entry next = entry.next;
+			entry.prev = null;
+			entry.next = null;
+			entry.level = -1;
+			if (entry.state == PENDING)
+				place(entry);
+			entry = next;
+		}
+	}
+
+	/**
+	 * Links a task into the slot covering its deadline, or runs it if it is
+	 * due.
+	 */
+	private void place(Entry entry) {
+		long delta = entry.deadline - tick;
+		if (delta <= 0) {
+			run(entry);
+			return;
+		}
+		long deadline = entry.deadline;
+		if (delta >= SPAN) {
+			// Beyond the last wheel; park in its furthest slot
+			delta = SPAN - 1;
+			deadline = tick + delta;
+		}
+		int level = (63 - Long.numberOfLeadingZeros(delta)) / SLOT_BITS;
+		int slot = (int) (deadline >>> (SLOT_BITS * level)) & MASK;
+
+		Entry head = wheels[level][slot];
+		entry.next = head;
+		if (head != null)
+			head.prev = entry;
+		entry.level = level;
+		entry.slot = slot;
+		wheels[level][slot] = entry;
+	}
+
+	private void unlink(Entry entry) {
+		if (entry.prev != null)
+			entry.prev.next = entry.next;
+		else
+			wheels[entry.level][entry.slot] = entry.next;
+		if (entry.next != null)
+			entry.next.prev = entry.prev;
+		entry.prev = null;
+		entry.next = null;
+		entry.level = -1;
+	}
+
+	private Entry detach(int level, int slot) {
+		Entry head = wheels[level][slot];
+		wheels[level][slot] = null;
+		return head;
+	}
+
+	private void run(Entry entry) {
+		if (!STATE.compareAndSet(entry, PENDING, EXPIRED))
+			return;
+		try {
+			executor.execute(entry.task);
+			return;
+		} catch (RejectedExecutionException e) {
+			LOGGER.debug("Executor rejected a due task.  Running it on the timer thread.",
+					e);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Unexpected RuntimeException while handing off a due task.  Running it on the timer thread.",
+					e);
+		}
+		// Nothing else would complete the message of an expired task
+		try {
+			entry.task.run();
+		} catch (RuntimeException e) {
+			LOGGER.warn("Unexpected RuntimeException while running a due task.",
+					e);
+		}
+	}
+
+	/**
+	 * A scheduled task and its position in the wheels.
+	 */
+	private class Entry implements Timeout {
+
+		private final Runnable task;
+
+		private final long deadline;
+
+		// Not private, so that STATE may update it
+		volatile int state;
+
+		private Entry prev;
+
+		private Entry next;
+
+		private int level;
+
+		private int slot;
+
+		public Entry(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+			this.state = PENDING;
+			this.level = -1;
+		}
+
+		@Override
+		public boolean cancel() {
+			if (!STATE.compareAndSet(this, PENDING, CANCELLED))
+				return false;
+			if (!shutdown)
+				cancelled.add(this);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+
+/**
+ * {@link Completion} that reports the outcome of a message to a
+ * {@link ResultListener}, without the latch and waiter bookkeeping of a
+ * future.
+ */
+class ListenerCompletion implements Completion {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(ListenerCompletion.class);
+
+	private static final AtomicIntegerFieldUpdater<ListenerCompletion> DONE = AtomicIntegerFieldUpdater
+			.newUpdater(ListenerCompletion.class, "done");
+
+	private final Message message;
+
+	private final ResultListener resultListener;
+
+	private final Executor callbackExecutor;
+
+	private final Completion.Listener listener;
+
+	private volatile int done;
+
+	private volatile DelayScheduler.Timeout pendingTask;
+
+	/**
+	 * Constructs a new completion for the specified message.
+	 *
+	 * @param message
+	 *            the message passed to the listener
+	 * @param resultListener
+	 *            the listener to notify
+	 * @param callbackExecutor
+	 *            the executor on which to notify the listener
+	 * @param listener
+	 *            the listener to notify when done, or {@code null}
+	 */
+	public ListenerCompletion(Message message, ResultListener resultListener,
+			Executor callbackExecutor, Completion.Listener listener) {
+		this.message = message;
+		this.resultListener = resultListener;
+		this.callbackExecutor = callbackExecutor;
+		this.listener = listener;
+	}
+
+	@Override
+	public void setResponse(final Response response) {
+		if (DONE.compareAndSet(this, 0, 1)) {
+			notify(new Runnable() {
+				@Override
+				public void run() {
+					resultListener.onResponse(message, response);
+				}
+			});
+		}
+	}
+
+	@Override
+	public void setThrowable(Throwable throwable) {
+		if (DONE.compareAndSet(this, 0, 1))
+			notifyThrowable(throwable);
+	}
+
+	@Override
+	public void setCancelled() {
+		if (DONE.compareAndSet(this, 0, 1)) {
+			notify(new Runnable() {
+				@Override
+				public void run() {
+					resultListener.onCancelled(message);
+				}
+			});
+		}
+	}
+
+	@Override
+	public void reject(Throwable throwable) {
+		if (DONE.compareAndSet(this, 0, 1)) {
+			removePendingTask();
+			notifyThrowable(throwable);
+		}
+	}
+
+	/**
+	 * Fails a message that was refused before it was admitted, without
+	 * notifying the completion listener.
+	 *
+	 * @param throwable
+	 *            the reason the message was refused
+	 */
+	public void refuse(Throwable throwable) {
+		if (DONE.compareAndSet(this, 0, 1))
+			execute(throwableCallback(throwable));
+	}
+
+	@Override
+	public boolean isDone() {
+		return done != 0;
+	}
+
+	@Override
+	public void setPendingTask(DelayScheduler.Timeout task) {
+		pendingTask = task;
+		// Completed before the task was recorded
+		if (isDone())
+			removePendingTask();
+	}
+
+	private void removePendingTask() {
+		DelayScheduler.Timeout task = pendingTask;
+		pendingTask = null;
+		if (task != null)
+			task.cancel();
+	}
+
+	private void notifyThrowable(Throwable throwable) {
+		notify(throwableCallback(throwable));
+	}
+
+	private Runnable throwableCallback(final Throwable throwable) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				resultListener.onThrowable(message, throwable);
+			}
+		};
+	}
+
+	private void notify(Runnable callback) {
+		if (listener != null)
+			listener.done(this);
+		execute(callback);
+	}
+
+	private void execute(final Runnable callback) {
+		callbackExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					callback.run();
+				} catch (RuntimeException e) {
+					LOGGER.warn("ResultListener threw an exception.", e);
+				}
+			}
+		});
+	}
+}
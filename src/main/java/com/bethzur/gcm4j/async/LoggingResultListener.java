@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.ResponseType;
+
+/**
+ * {@link ResultListener} that logs the outcomes of messages whose pushing
+ * code is gone, e.g., messages recovered from a {@link MessageJournal}.
+ */
+class LoggingResultListener implements ResultListener {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(LoggingResultListener.class);
+
+	@Override
+	public void onResponse(Message message, Response response) {
+		if (response.getResponseType() == ResponseType.Success)
+			LOGGER.debug("Recovered message sent: {}", message);
+		else
+			LOGGER.warn("Recovered message failed with {}: {}",
+					response.getResponseType(), message);
+	}
+
+	@Override
+	public void onThrowable(Message message, Throwable throwable) {
+		LOGGER.warn("Recovered message failed: " + message, throwable);
+	}
+
+	@Override
+	public void onCancelled(Message message) {
+		LOGGER.debug("Recovered message cancelled: {}", message);
+	}
+}
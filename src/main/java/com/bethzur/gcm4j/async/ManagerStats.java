@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+/**
+ * A snapshot of the messages of an {@link AsyncGcmManager}, e.g., to monitor
+ * a drain after {@link AsyncGcmManager#shutdown()}. The counts are read
+ * without locking, so a snapshot taken under load is approximate.
+ *
+ * @see AsyncGcmManager#getStats()
+ */
+public class ManagerStats {
+
+	private final long queued;
+
+	private final long delayed;
+
+	private final long inFlight;
+
+	private final long completed;
+
+	private final long abandoned;
+
+	/**
+	 * Constructs a new snapshot.
+	 *
+	 * @param queued
+	 *            the number of messages waiting to be sent
+	 * @param delayed
+	 *            the number of messages waiting for their delay to expire
+	 * @param inFlight
+	 *            the number of messages sent but not yet answered
+	 * @param completed
+	 *            the number of messages completed
+	 * @param abandoned
+	 *            the number of delayed messages dropped by a shutdown
+	 */
+	public ManagerStats(long queued, long delayed, long inFlight,
+			long completed, long abandoned) {
+		this.queued = queued;
+		this.delayed = delayed;
+		this.inFlight = inFlight;
+		this.completed = completed;
+		this.abandoned = abandoned;
+	}
+
+	/**
+	 * Returns the number of unfinished messages that are neither delayed nor
+	 * in flight, e.g., those waiting for a thread, in a multicast group, or
+	 * being handled.
+	 *
+	 * @return the number of queued messages
+	 */
+	public long getQueued() {
+		return queued;
+	}
+
+	/**
+	 * Returns the number of messages waiting in the {@link DelayScheduler},
+	 * e.g., backed off for retry.
+	 *
+	 * @return the number of delayed messages
+	 */
+	public long getDelayed() {
+		return delayed;
+	}
+
+	/**
+	 * Returns the number of messages whose request has been sent, but whose
+	 * response or failure has not yet been received.
+	 *
+	 * @return the number of in-flight messages
+	 */
+	public long getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Returns the number of messages that have completed, with any outcome.
+	 *
+	 * @return the number of completed messages
+	 */
+	public long getCompleted() {
+		return completed;
+	}
+
+	/**
+	 * Returns the number of delayed messages dropped because the manager was
+	 * shut down before they were due.
+	 *
+	 * @return the number of abandoned messages
+	 */
+	public long getAbandoned() {
+		return abandoned;
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("ManagerStats(queued=%d, delayed=%d, inFlight=%d, completed=%d, abandoned=%d)",
+						queued, delayed, inFlight, completed, abandoned);
+	}
+}
@@ -0,0 +1,541 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.util.MessageCodec;
+
+/**
+ * {@link MessageJournal} kept as an append-only log of memory-mapped segment
+ * files in a directory.
+ * <p>
+ * Each record holds its length, a CRC-32 checksum, its type (accepted, sent,
+ * or completed), the message id, and, for accepted messages, the priority,
+ * by name, and message. Records are copied into the mapped segment under a short
+ * lock; a segment that is full is sealed and a new one created. A record torn
+ * by a crash fails its checksum and ends the recovery of its segment.
+ * <p>
+ * Appending an accepted message waits until the record has been forced to
+ * disk. The forcing is shared: one caller forces every segment written since
+ * the last force, covering all records appended meanwhile, while the others
+ * wait for it (group commit). A batch of messages is appended under one lock
+ * and forced once. Sent and completed records are not forced
+ * themselves; they become durable with the next force, and a lost one at most
+ * causes a message to be sent again.
+ * <p>
+ * A segment is deleted once every message accepted in it has completed and
+ * all older segments have been deleted, so completed records are never lost
+ * while the message they complete may still be recovered. A message that
+ * remains unfinished keeps its segment, and the later ones, until it
+ * completes or the journal is recovered after a restart.
+ */
+public class MappedMessageJournal implements MessageJournal {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(MappedMessageJournal.class);
+
+	/**
+	 * The default size of each segment file in bytes.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	private static final String PREFIX = "journal-";
+
+	private static final String SUFFIX = ".log";
+
+	private static final byte ACCEPTED = 1;
+
+	private static final byte SENT = 2;
+
+	private static final byte COMPLETED = 3;
+
+	/**
+	 * The length and checksum preceding each record body.
+	 */
+	private static final int HEADER_SIZE = 8;
+
+	/**
+	 * The type and id at the start of each record body.
+	 */
+	private static final int BODY_HEADER_SIZE = 9;
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private final File directory;
+
+	private final int segmentSize;
+
+	private final Object writeLock = new Object();
+
+	private final Object syncLock = new Object();
+
+	// Guarded by writeLock
+	private final LinkedList<Segment> segments;
+
+	// Guarded by writeLock
+	private final Set<Segment> dirty;
+
+	// Guarded by writeLock
+	private final Map<Long, Segment> unfinished;
+
+	// Guarded by writeLock
+	private Segment active;
+
+	// Guarded by writeLock
+	private long nextId;
+
+	// Guarded by writeLock
+	private long nextSegment;
+
+	// Guarded by writeLock
+	private long appended;
+
+	// Guarded by writeLock
+	private boolean closed;
+
+	// Guarded by syncLock
+	private long synced;
+
+	private final List<File> recoveredFiles;
+
+	private final List<Entry> recovered;
+
+	/**
+	 * Opens the journal in the specified directory, creating the directory if
+	 * needed, with the default segment size. Records left by a previous
+	 * journal in the directory are read and made available through
+	 * {@link #recover()}.
+	 *
+	 * @param directory
+	 *            the directory holding the segment files
+	 * @throws IOException
+	 *             if the directory could not be created or read
+	 */
+	public MappedMessageJournal(File directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Opens the journal in the specified directory, creating the directory if
+	 * needed. Records left by a previous journal in the directory are read and
+	 * made available through {@link #recover()}.
+	 *
+	 * @param directory
+	 *            the directory holding the segment files
+	 * @param segmentSize
+	 *            the size of each segment file in bytes
+	 * @throws IOException
+	 *             if the directory could not be created or read
+	 */
+	public MappedMessageJournal(File directory, int segmentSize)
+			throws IOException {
+		if (directory == null)
+			throw new IllegalArgumentException(
+					"Argument 'directory' may not be null.");
+		if (segmentSize < 1024)
+			throw new IllegalArgumentException(
+					"Argument 'segmentSize' must be at least 1024.");
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Unable to create journal directory "
+					+ directory + ".");
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.segments = new LinkedList<Segment>();
+		this.dirty = new LinkedHashSet<Segment>();
+		this.unfinished = new HashMap<Long, Segment>();
+		this.recoveredFiles = new ArrayList<File>(Arrays.asList(listSegments()));
+
+		Map<Long, Entry> entries = new LinkedHashMap<Long, Entry>();
+		long maxId = 0;
+		long maxSegment = 0;
+		for (File file : recoveredFiles) {
+			maxSegment = Math.max(maxSegment, sequence(file));
+			maxId = Math.max(maxId, read(file, entries));
+		}
+		this.recovered = new ArrayList<Entry>(entries.values());
+		this.nextId = maxId + 1;
+		this.nextSegment = maxSegment + 1;
+	}
+
+	@Override
+	public long append(Message message, Priority priority) throws IOException {
+		return append(Collections.singletonList(new Entry(message, priority)))[0];
+	}
+
+	@Override
+	public long[] append(List<Entry> entries) throws IOException {
+		byte[][] payloads = new byte[entries.size()][];
+		for (int i = 0; i < payloads.length; i++) {
+			Entry entry = entries.get(i);
+			payloads[i] = encode(entry.getMessage(), entry.getPriority());
+		}
+		long[] ids = new long[payloads.length];
+		long position;
+		synchronized (writeLock) {
+			int written = 0;
+			try {
+				for (; written < payloads.length; written++) {
+					long id = nextId++;
+					Segment segment = write(ACCEPTED, id, payloads[written]);
+					unfinished.put(id, segment);
+					segment.live++;
+					ids[written] = id;
+				}
+			} catch (IOException e) {
+				// Complete the records already written, so they are not
+				// recovered
+				for (int i = 0; i < written; i++)
+					abandon(ids[i]);
+				throw e;
+			}
+			position = appended;
+		}
+		sync(position);
+		return ids;
+	}
+
+	/**
+	 * Completes a record of a batch that failed to be appended, as far as
+	 * possible. Must hold the write lock.
+	 */
+	private void abandon(long id) {
+		Segment segment = unfinished.remove(id);
+		segment.live--;
+		try {
+			write(COMPLETED, id, EMPTY);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to journal an abandoned message.", e);
+		}
+		compact();
+	}
+
+	@Override
+	public void markSent(long id) throws IOException {
+		synchronized (writeLock) {
+			if (unfinished.containsKey(id))
+				write(SENT, id, EMPTY);
+		}
+	}
+
+	@Override
+	public void markCompleted(long id) throws IOException {
+		synchronized (writeLock) {
+			Segment segment = unfinished.get(id);
+			if (segment == null)
+				return;
+			write(COMPLETED, id, EMPTY);
+			unfinished.remove(id);
+			segment.live--;
+			compact();
+		}
+	}
+
+	@Override
+	public List<Entry> recover() {
+		synchronized (recovered) {
+			return Collections.unmodifiableList(new ArrayList<Entry>(
+					recovered));
+		}
+	}
+
+	@Override
+	public void discardRecovered() throws IOException {
+		synchronized (recovered) {
+			for (File file : recoveredFiles) {
+				if (file.exists() && !file.delete())
+					throw new IOException("Unable to delete journal segment "
+							+ file + ".");
+			}
+			recoveredFiles.clear();
+			recovered.clear();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (writeLock) {
+			if (closed)
+				return;
+			closed = true;
+		}
+		synchronized (syncLock) {
+			synchronized (writeLock) {
+				for (Segment segment : segments)
+					segment.buffer.force();
+				dirty.clear();
+				segments.clear();
+				active = null;
+			}
+		}
+	}
+
+	/**
+	 * Copies a record into the active segment, creating a new segment if it
+	 * is full. Must hold the write lock.
+	 *
+	 * @return the segment holding the record
+	 */
+	private Segment write(byte type, long id, byte[] payload)
+			throws IOException {
+		if (closed)
+			throw new IOException("Journal has been closed.");
+		int length = BODY_HEADER_SIZE + payload.length;
+		// Leave room for the zero length that ends the segment
+		if (HEADER_SIZE + length + 4 > segmentSize)
+			throw new IOException("Message too large for a journal segment.");
+		if (active == null
+				|| active.buffer.remaining() < HEADER_SIZE + length + 4)
+			rotate();
+
+		byte[] body = new byte[length];
+		ByteBuffer.wrap(body).put(type).putLong(id).put(payload);
+		CRC32 crc = new CRC32();
+		crc.update(body);
+
+		MappedByteBuffer buffer = active.buffer;
+		int start = buffer.position();
+		buffer.position(start + 4);
+		buffer.putInt((int) crc.getValue());
+		buffer.put(body);
+		// Length last, so a partial record reads as the end of the segment
+		buffer.putInt(start, length);
+		dirty.add(active);
+		appended++;
+		return active;
+	}
+
+	/**
+	 * Seals the active segment and creates a new one. Must hold the write
+	 * lock.
+	 */
+	private void rotate() throws IOException {
+		File file = new File(directory, String.format("%s%016x%s", PREFIX,
+				nextSegment++, SUFFIX));
+		MappedByteBuffer buffer;
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(segmentSize);
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+					segmentSize);
+		} finally {
+			raf.close();
+		}
+		active = new Segment(file, buffer);
+		segments.addLast(active);
+		compact();
+	}
+
+	/**
+	 * Deletes the oldest sealed segments whose messages have all completed.
+	 * Must hold the write lock.
+	 */
+	private void compact() {
+		while (!segments.isEmpty()) {
+			Segment segment = segments.getFirst();
+			if (segment == active || segment.live > 0)
+				return;
+			segments.removeFirst();
+			dirty.remove(segment);
+			if (!segment.file.delete())
+				LOGGER.warn("Unable to delete journal segment {}.",
+						segment.file);
+		}
+	}
+
+	/**
+	 * Forces the segments to disk until at least the specified number of
+	 * records is durable, sharing the force with concurrent callers.
+	 */
+	private void sync(long position) throws IOException {
+		synchronized (syncLock) {
+			if (synced >= position)
+				return; // Forced by another caller meanwhile
+			List<Segment> toForce;
+			long upTo;
+			synchronized (writeLock) {
+				if (closed)
+					throw new IOException("Journal has been closed.");
+				upTo = appended;
+				toForce = new ArrayList<Segment>(dirty);
+				dirty.clear();
+			}
+			for (Segment segment : toForce)
+				segment.buffer.force();
+			synced = upTo;
+		}
+	}
+
+	private File[] listSegments() {
+		File[] files = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				String name = file.getName();
+				return file.isFile() && name.startsWith(PREFIX)
+						&& name.endsWith(SUFFIX) && sequence(file) >= 0;
+			}
+		});
+		if (files == null)
+			return new File[0];
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				long sa = sequence(a);
+				long sb = sequence(b);
+				return (sa < sb) ? -1 : ((sa == sb) ? 0 : 1);
+			}
+		});
+		return files;
+	}
+
+	private static long sequence(File file) {
+		String name = file.getName();
+		try {
+			return Long.parseLong(name.substring(PREFIX.length(),
+					name.length() - SUFFIX.length()), 16);
+		} catch (RuntimeException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads the records of a segment, adding accepted messages to and
+	 * removing completed ones from the map.
+	 *
+	 * @return the largest id read
+	 */
+	private static long read(File file, Map<Long, Entry> entries)
+			throws IOException {
+		long maxId = 0;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			// Read rather than map, so the file can be deleted once closed
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					break;
+			}
+			buffer.flip();
+			while (buffer.remaining() >= HEADER_SIZE + BODY_HEADER_SIZE) {
+				int length = buffer.getInt();
+				if (length < BODY_HEADER_SIZE
+						|| length > buffer.remaining() - 4)
+					break; // End of the segment
+				int checksum = buffer.getInt();
+				byte[] body = new byte[length];
+				buffer.get(body);
+				CRC32 crc = new CRC32();
+				crc.update(body);
+				if ((int) crc.getValue() != checksum) {
+					LOGGER.warn("Torn record in journal segment {}.  Ignoring the rest of the segment.",
+							file);
+					break;
+				}
+
+				ByteBuffer record = ByteBuffer.wrap(body);
+				byte type = record.get();
+				long id = record.getLong();
+				maxId = Math.max(maxId, id);
+				switch (type) {
+				case ACCEPTED:
+					Entry entry = decode(body, BODY_HEADER_SIZE, file);
+					if (entry != null)
+						entries.put(id, entry);
+					break;
+				case COMPLETED:
+					entries.remove(id);
+					break;
+				default:
+					break;
+				}
+			}
+		} finally {
+			raf.close();
+		}
+		return maxId;
+	}
+
+	private static byte[] encode(Message message, Priority priority)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		MessageCodec.writeEnum(out, priority);
+		MessageCodec.write(out, message);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static Entry decode(byte[] body, int offset, File file) {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				body, offset, body.length - offset));
+		try {
+			Priority priority = MessageCodec.readEnum(in, Priority.class);
+			if (priority == null)
+				throw new IOException("Missing priority.");
+			return new Entry(MessageCodec.read(in), priority);
+		} catch (IOException e) {
+			LOGGER.warn("Invalid message in journal segment " + file
+					+ ".  Dropping message.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * A segment file and its mapping.
+	 */
+	private static class Segment {
+
+		private final File file;
+
+		private final MappedByteBuffer buffer;
+
+		/**
+		 * The number of messages accepted in this segment that have not
+		 * completed. Guarded by the write lock.
+		 */
+		private int live;
+
+		public Segment(File file, MappedByteBuffer buffer) {
+			this.file = file;
+			this.buffer = buffer;
+		}
+	}
+}
@@ -29,26 +29,31 @@ class MessageContext extends AbstractContext<Message, MessageDecision> {
 
 	/**
 	 * Constructs a new {@code MessageContext} wrapping the given
-	 * {@code FutureResponse} and {@code Message}.
+	 * {@code Completion}, priority, and {@code Message}.
 	 * 
-	 * @param futureResponse
-	 *            the {@code FutureResponse} for the message
+	 * @param completion
+	 *            the {@code Completion} for the message
+	 * @param priority
+	 *            the priority of the message
 	 * @param message
 	 *            the message
 	 */
-	public MessageContext(FutureResponse futureResponse, Message message) {
-		super(futureResponse, message, MessageDecision.SEND);
+	public MessageContext(Completion completion, Priority priority,
+			Message message) {
+		super(completion, priority, message, MessageDecision.SEND);
 	}
 
 	/**
 	 * Constructs a new {@code AbstractContext} from an existing context,
-	 * object, and initial decision. The future, delay, and internal context map
-	 * are copied. This constructor is useful for transforming, for example, a
+	 * object, and initial decision. The completion, priority, delay, and
+	 * internal context map are copied. This constructor is useful for
+	 * transforming, for example, a
 	 * {@link ResponseContext} into a {@code MessageContext} when the message
 	 * should be retried.
 	 * 
 	 * @param context
-	 *            the context whose future, delay, and context map to copy.
+	 *            the context whose completion, priority, delay, and context
+	 *            map to copy.
 	 * @param message
 	 *            the message
 	 */
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+
+/**
+ * Sends identical messages pushed while one of them is queued or in flight
+ * only once. The first push of a message admits a shared completion to the
+ * pipeline; the completions of this and every later identical push are
+ * attached to it and receive its outcome. Messages are matched by
+ * {@link Message#equals(Object)}.
+ * <p>
+ * Cancelling an attached completion detaches it. The shared message is
+ * cancelled once every attached completion has been cancelled.
+ */
+class MessageDeduplicator {
+
+	/**
+	 * Admits a shared message to the pipeline.
+	 */
+	static interface Admission {
+		/**
+		 * Admits the message.
+		 *
+		 * @param completion
+		 *            the shared completion of the message
+		 * @param priority
+		 *            the priority of the message
+		 * @param message
+		 *            the message
+		 * @throws RuntimeException
+		 *             if the message is not admitted
+		 */
+		void admit(Completion completion, Priority priority, Message message);
+	}
+
+	/**
+	 * Creates the completion of a push.
+	 */
+	static interface CompletionFactory {
+		/**
+		 * Creates the completion.
+		 *
+		 * @param listener
+		 *            the listener to notify when the completion is done
+		 * @return the new completion
+		 */
+		Completion create(Completion.Listener listener);
+	}
+
+	private final ConcurrentMap<Message, Shared> shared;
+
+	private final Completion.Listener listener;
+
+	private final Admission admission;
+
+	/**
+	 * Constructs a new deduplicator.
+	 *
+	 * @param listener
+	 *            the listener to notify when a shared message is done
+	 * @param admission
+	 *            the admission of new shared messages
+	 */
+	public MessageDeduplicator(Completion.Listener listener,
+			Admission admission) {
+		this.shared = new ConcurrentHashMap<Message, Shared>();
+		this.listener = listener;
+		this.admission = admission;
+	}
+
+	/**
+	 * Attaches a push of the message to an identical unfinished message, or
+	 * else admits it as a new shared message.
+	 *
+	 * @param message
+	 *            the pushed message
+	 * @param priority
+	 *            the priority of the push, used if it is admitted
+	 * @param factory
+	 *            the factory for the completion of the push
+	 * @return the completion of the push
+	 * @throws RuntimeException
+	 *             if the message is not admitted
+	 */
+	public Completion push(Message message, Priority priority,
+			CompletionFactory factory) {
+		return push(message, priority, factory, admission);
+	}
+
+	/**
+	 * Attaches a push of the message to an identical unfinished message, or
+	 * else admits it as a new shared message through the specified admission,
+	 * e.g., one batching the messages of a bulk push.
+	 *
+	 * @param message
+	 *            the pushed message
+	 * @param priority
+	 *            the priority of the push, used if it is admitted
+	 * @param factory
+	 *            the factory for the completion of the push
+	 * @param admission
+	 *            the admission of a new shared message
+	 * @return the completion of the push
+	 * @throws RuntimeException
+	 *             if the message is not admitted
+	 */
+	public Completion push(Message message, Priority priority,
+			CompletionFactory factory, Admission admission) {
+		while (true) {
+			Shared current = shared.get(message);
+			boolean created = false;
+			if (current == null) {
+				current = new Shared(message);
+				Shared existing = shared.putIfAbsent(message, current);
+				if (existing != null)
+					current = existing;
+				else
+					created = true;
+			}
+			Completion completion = factory.create(current);
+			if (!current.attach(completion))
+				continue; // Finished in the meantime
+			if (created) {
+				try {
+					admission.admit(current, priority, message);
+				} catch (RuntimeException e) {
+					current.abort(e);
+					throw e;
+				}
+			}
+			return completion;
+		}
+	}
+
+	/**
+	 * The completion of a shared message, passing its outcome to the
+	 * attached completions.
+	 */
+	private class Shared implements Completion, Completion.Listener {
+
+		private final Message message;
+
+		// Guarded by this
+		private final List<Completion> attached;
+
+		// Guarded by this
+
+		private int live;
+
+		private volatile boolean closed;
+
+		private volatile DelayScheduler.Timeout pendingTask;
+
+		public Shared(Message message) {
+			this.message = message;
+			this.attached = new ArrayList<Completion>(1);
+		}
+
+		synchronized boolean attach(Completion completion) {
+			if (closed)
+				return false;
+			attached.add(completion);
+			live++;
+			return true;
+		}
+
+		/**
+		 * Called when an attached completion is done, either by this
+		 * completion or by its caller cancelling it.
+		 */
+		@Override
+		public void done(Completion completion) {
+			synchronized (this) {
+				if (closed || --live > 0)
+					return;
+			}
+			// Every attached completion was cancelled
+			if (close(true) != null)
+				removePendingTask();
+		}
+
+		@Override
+		public void setResponse(Response response) {
+			List<Completion> completions = close(true);
+			if (completions != null) {
+				for (Completion completion : completions)
+					completion.setResponse(response);
+			}
+		}
+
+		@Override
+		public void setThrowable(Throwable throwable) {
+			List<Completion> completions = close(true);
+			if (completions != null) {
+				for (Completion completion : completions)
+					completion.setThrowable(throwable);
+			}
+		}
+
+		@Override
+		public void setCancelled() {
+			List<Completion> completions = close(true);
+			if (completions != null) {
+				for (Completion completion : completions)
+					completion.setCancelled();
+			}
+		}
+
+		@Override
+		public void reject(Throwable throwable) {
+			List<Completion> completions = close(true);
+			if (completions != null) {
+				removePendingTask();
+				for (Completion completion : completions)
+					completion.reject(throwable);
+			}
+		}
+
+		/**
+		 * Fails the attached completions of a message that was not admitted.
+		 */
+		void abort(Throwable throwable) {
+			List<Completion> completions = close(false);
+			if (completions != null) {
+				for (Completion completion : completions)
+					completion.setThrowable(throwable);
+			}
+		}
+
+		@Override
+		public boolean isDone() {
+			return closed;
+		}
+
+		@Override
+		public void setPendingTask(DelayScheduler.Timeout task) {
+			pendingTask = task;
+			// Completed before the task was recorded
+			if (isDone())
+				removePendingTask();
+		}
+
+		private void removePendingTask() {
+			DelayScheduler.Timeout task = pendingTask;
+			pendingTask = null;
+			if (task != null)
+				task.cancel();
+		}
+
+		/**
+		 * Marks this completion done, so later pushes admit a new message.
+		 *
+		 * @param admitted
+		 *            whether the message was admitted, so the listener must
+		 *            be notified
+		 * @return the attached completions, or {@code null} if already done
+		 */
+		private List<Completion> close(boolean admitted) {
+			List<Completion> completions;
+			synchronized (this) {
+				if (closed)
+					return null;
+				closed = true;
+				completions = new ArrayList<Completion>(attached);
+				attached.clear();
+			}
+			shared.remove(message, this);
+			if (admitted && listener != null)
+				listener.done(this);
+			return completions;
+		}
+	}
+}
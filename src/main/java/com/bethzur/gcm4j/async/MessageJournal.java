@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.bethzur.gcm4j.Message;
+
+/**
+ * Durable record of the messages accepted by an {@link AsyncGcmManager}, so
+ * that messages still queued, delayed, or in flight when the process stops
+ * are sent after it restarts.
+ * <p>
+ * The manager appends each accepted message before admitting it, those of a
+ * bulk push or a recovery in batches, and records when it is sent and when
+ * it completes. Messages dropped by
+ * {@link AsyncGcmManager#shutdown()} are not recorded as completed. When a
+ * manager is built with a journal, it first {@link #recover() recovers} the
+ * unfinished messages, pushes them again, and then
+ * {@link #discardRecovered() discards} the recovered records. Delivery is
+ * therefore at least once: a message sent just before a crash may be sent
+ * again.
+ *
+ * @see MappedMessageJournal
+ * @see AsyncGcmManagerBuilder#journal(MessageJournal)
+ */
+public interface MessageJournal {
+
+	/**
+	 * A message appended to or recovered from the journal.
+	 */
+	static final class Entry {
+
+		private final Message message;
+
+		private final Priority priority;
+
+		/**
+		 * Constructs a new entry.
+		 *
+		 * @param message
+		 *            the message
+		 * @param priority
+		 *            the priority with which the message was pushed
+		 */
+		public Entry(Message message, Priority priority) {
+			this.message = message;
+			this.priority = priority;
+		}
+
+		/**
+		 * Gets the message.
+		 *
+		 * @return the message
+		 */
+		public Message getMessage() {
+			return message;
+		}
+
+		/**
+		 * Gets the priority with which the message was pushed.
+		 *
+		 * @return the priority
+		 */
+		public Priority getPriority() {
+			return priority;
+		}
+	}
+
+	/**
+	 * Records a newly accepted message. The record is durable when this
+	 * method returns.
+	 *
+	 * @param message
+	 *            the message
+	 * @param priority
+	 *            the priority with which the message was pushed
+	 * @return the id of the record
+	 * @throws IOException
+	 *             if the message could not be recorded
+	 */
+	long append(Message message, Priority priority) throws IOException;
+
+	/**
+	 * Records newly accepted messages. The records are durable when this
+	 * method returns, at the cost of a single write to disk. If an exception
+	 * is thrown, none of the messages is recovered.
+	 *
+	 * @param entries
+	 *            the messages and the priorities with which they were pushed
+	 * @return the ids of the records, in the order of the entries
+	 * @throws IOException
+	 *             if the messages could not be recorded
+	 */
+	long[] append(List<Entry> entries) throws IOException;
+
+	/**
+	 * Records that a message was sent. Need not be durable when this method
+	 * returns.
+	 *
+	 * @param id
+	 *            the id of the record
+	 * @throws IOException
+	 *             if the transition could not be recorded
+	 */
+	void markSent(long id) throws IOException;
+
+	/**
+	 * Records that a message completed, so it will not be recovered. Need not
+	 * be durable when this method returns.
+	 *
+	 * @param id
+	 *            the id of the record
+	 * @throws IOException
+	 *             if the transition could not be recorded
+	 */
+	void markCompleted(long id) throws IOException;
+
+	/**
+	 * Gets the messages that had not completed when the journal was last
+	 * closed, in the order they were accepted.
+	 *
+	 * @return the unfinished messages
+	 * @throws IOException
+	 *             if the records could not be read
+	 */
+	List<Entry> recover() throws IOException;
+
+	/**
+	 * Discards the records returned by {@link #recover()}, once the messages
+	 * have been appended again.
+	 *
+	 * @throws IOException
+	 *             if the records could not be discarded
+	 */
+	void discardRecovered() throws IOException;
+
+	/**
+	 * Makes all records durable and closes the journal.
+	 *
+	 * @throws IOException
+	 *             if the records could not be written
+	 */
+	void close() throws IOException;
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Indicates that a message was not accepted, or was dropped after being
+ * accepted, because too many messages were pending, the manager was shut
+ * down, or the message could not be journaled.
+ *
+ * @see OverflowPolicy
+ */
+public class MessageRejectedException extends RejectedExecutionException {
+
+	private static final long serialVersionUID = 5391840736582129043L;
+
+	/**
+	 * Constructs a new {@code MessageRejectedException} with the specified
+	 * message.
+	 *
+	 * @param message
+	 *            the message
+	 */
+	public MessageRejectedException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Constructs a new {@code MessageRejectedException} with the specified
+	 * message and cause.
+	 *
+	 * @param message
+	 *            the message
+	 * @param cause
+	 *            the cause
+	 */
+	public MessageRejectedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
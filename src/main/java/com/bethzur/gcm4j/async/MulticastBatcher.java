@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Groups messages that are ready to be sent by payload, handing each group to
+ * a {@link Sender} once it is full or its linger deadline expires.
+ * <p>
+ * Groups are keyed by {@link PayloadKey}, so only messages that can share a
+ * multicast request are grouped together. Adding to different groups does not
+ * contend on a common lock.
+ */
+class MulticastBatcher {
+
+	/**
+	 * Receives the groups of messages to send.
+	 */
+	static interface Sender {
+		/**
+		 * Sends a group of messages sharing a payload.
+		 *
+		 * @param batch
+		 *            the contexts of the messages to send
+		 */
+		void send(List<MessageContext> batch);
+	}
+
+	private final int maxSize;
+
+	private final long lingerMillis;
+
+	private final DelayScheduler scheduler;
+
+	private final Sender sender;
+
+	private final ConcurrentMap<PayloadKey, Batch> batches;
+
+	/**
+	 * Constructs a new batcher.
+	 *
+	 * @param maxSize
+	 *            the size at which a group is sent immediately
+	 * @param lingerMillis
+	 *            the longest time the first message of a group waits before
+	 *            the group is sent
+	 * @param scheduler
+	 *            the scheduler handing expired groups to the executor that
+	 *            sends them
+	 * @param sender
+	 *            the sender of the groups
+	 */
+	public MulticastBatcher(int maxSize, long lingerMillis,
+			DelayScheduler scheduler, Sender sender) {
+		this.maxSize = maxSize;
+		this.lingerMillis = lingerMillis;
+		this.scheduler = scheduler;
+		this.sender = sender;
+		this.batches = new ConcurrentHashMap<PayloadKey, Batch>();
+	}
+
+	/**
+	 * Adds a message to its group, sending the group on the calling thread if
+	 * the message fills it.
+	 *
+	 * @param context
+	 *            the context of the message to add
+	 */
+	public void add(MessageContext context) {
+		PayloadKey key = new PayloadKey(context.unwrap());
+		while (true) {
+			Batch batch = batches.get(key);
+			if (batch == null) {
+				Batch newBatch = new Batch(key);
+				batch = batches.putIfAbsent(key, newBatch);
+				if (batch == null) {
+					batch = newBatch;
+					batch.start();
+				}
+			}
+
+			List<MessageContext> full;
+			synchronized (batch) {
+				if (batch.closed)
+					continue; // Flushed concurrently; start a new group
+				batch.contexts.add(context);
+				if (batch.contexts.size() < maxSize)
+					return;
+				full = batch.close();
+			}
+			batch.cancelLinger();
+			sender.send(full);
+			return;
+		}
+	}
+
+	/**
+	 * A group of messages with the same payload.
+	 */
+	private class Batch implements Runnable {
+
+		private final PayloadKey key;
+
+		private final List<MessageContext> contexts;
+
+		private volatile DelayScheduler.Timeout linger;
+
+		private boolean closed;
+
+		public Batch(PayloadKey key) {
+			this.key = key;
+			this.contexts = new ArrayList<MessageContext>(maxSize);
+			this.closed = false;
+		}
+
+		void start() {
+			linger = scheduler.schedule(this, lingerMillis);
+		}
+
+		/**
+		 * Closes the group to new messages. Must hold the monitor.
+		 */
+		List<MessageContext> close() {
+			closed = true;
+			batches.remove(key, this);
+			return contexts;
+		}
+
+		void cancelLinger() {
+			DelayScheduler.Timeout timeout = linger;
+			if (timeout != null)
+				timeout.cancel();
+		}
+
+		@Override
+		public void run() {
+			List<MessageContext> expired;
+			synchronized (this) {
+				if (closed)
+					return;
+				expired = close();
+			}
+			sender.send(expired);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import com.bethzur.gcm4j.Message;
+
+/**
+ * What {@link AsyncGcmManager#pushMessage(Message)} does when the number of
+ * pending and in-flight messages has reached the configured maximum (see
+ * {@link AsyncGcmManagerBuilder#maxPending(int, OverflowPolicy, long)}).
+ */
+public enum OverflowPolicy {
+	/**
+	 * Block the caller until a message completes, failing with a
+	 * {@link MessageRejectedException} if none completes within the timeout.
+	 */
+	BLOCK,
+	/**
+	 * Fail immediately with a {@link MessageRejectedException}.
+	 */
+	REJECT,
+	/**
+	 * Accept the new message and drop the oldest unfinished one, which
+	 * completes with a {@link MessageRejectedException}. If the oldest message
+	 * is already in flight, its response is discarded.
+	 */
+	SHED_OLDEST,
+	/**
+	 * Accept the new message and drop the oldest unfinished message of the
+	 * lowest {@link Priority} present, which completes with a
+	 * {@link MessageRejectedException}. Messages of a higher priority than the
+	 * new message are never dropped; if only those are unfinished, the new
+	 * message is rejected instead.
+	 */
+	SHED_LOWEST_PRIORITY
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.Map;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.MessageBuilder;
+
+/**
+ * The payload of a {@link Message}, i.e., every field except the registration
+ * id. Messages with equal payloads may be sent in a single multicast request.
+ */
+final class PayloadKey {
+
+	private final String collapseKey;
+
+	private final Map<String, String> data;
+
+	private final boolean delayWhileIdle;
+
+	private final int timeToLive;
+
+	private final int hash;
+
+	/**
+	 * Constructs the payload key for the specified message.
+	 *
+	 * @param message
+	 *            the message
+	 */
+	public PayloadKey(Message message) {
+		this.collapseKey = message.getCollapseKey();
+		this.data = MessageBuilder.readData(message);
+		this.delayWhileIdle = message.delayWhileIdle();
+		this.timeToLive = message.timeToLive();
+
+		final int prime = 31;
+		int result = 1;
+		result = prime * result
+				+ ((collapseKey == null) ? 0 : collapseKey.hashCode());
+		result = prime * result + data.hashCode();
+		result = prime * result + (delayWhileIdle ? 1231 : 1237);
+		result = prime * result + timeToLive;
+		this.hash = result;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof PayloadKey))
+			return false;
+		PayloadKey other = (PayloadKey) obj;
+		if (hash != other.hash)
+			return false;
+		if (delayWhileIdle != other.delayWhileIdle)
+			return false;
+		if (timeToLive != other.timeToLive)
+			return false;
+		if (collapseKey == null) {
+			if (other.collapseKey != null)
+				return false;
+		} else if (!collapseKey.equals(other.collapseKey))
+			return false;
+		return data.equals(other.data);
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import com.bethzur.gcm4j.Message;
+
+/**
+ * The priority class of a message pushed via
+ * {@link AsyncGcmManager#pushMessage(Message, Priority)}. Each class has its
+ * own lane, so messages of a higher class are dispatched ahead of any number
+ * of ready messages of a lower class (see
+ * {@link AsyncGcmManagerBuilder#priorityWeights(int, int, int)}).
+ * <p>
+ * Classes are declared from highest to lowest.
+ */
+public enum Priority {
+	/**
+	 * Time-critical, transactional messages, e.g., login codes or chat
+	 * notifications.
+	 */
+	HIGH,
+	/**
+	 * Regular messages. Used by {@link AsyncGcmManager#pushMessage(Message)}.
+	 */
+	NORMAL,
+	/**
+	 * Bulk messages, e.g., marketing campaigns to many devices.
+	 */
+	LOW
+}
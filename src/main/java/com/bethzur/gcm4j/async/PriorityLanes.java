@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One queue per {@link Priority} for messages that are ready to be sent.
+ * <p>
+ * {@link #poll()} takes the message to send next. With strict priority, that
+ * is the oldest message of the highest non-empty lane. With weights, the lanes
+ * take turns in proportion to their weights, so lower lanes are never starved;
+ * a lane whose turn it is but which is empty yields to the highest non-empty
+ * lane.
+ */
+class PriorityLanes {
+
+	private static final Priority[] PRIORITIES = Priority.values();
+
+	private final Queue<MessageContext>[] lanes;
+
+	/**
+	 * The lane whose turn it is, for each slot of a weighted round, or
+	 * {@code null} for strict priority.
+	 */
+	private final int[] turns;
+
+	private final AtomicInteger turn;
+
+	/**
+	 * Constructs lanes dispatched by strict priority.
+	 */
+	public PriorityLanes() {
+		this(null);
+	}
+
+	/**
+	 * Constructs lanes dispatched by weight.
+	 *
+	 * @param weights
+	 *            the weight of each lane, indexed by {@link Priority#ordinal()},
+	 *            or {@code null} for strict priority
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public PriorityLanes(int[] weights) {
+		this.lanes = new Queue[PRIORITIES.length];
+		for (int i = 0; i < lanes.length; i++) {
+			lanes[i] = new ConcurrentLinkedQueue<MessageContext>();
+		}
+		this.turns = (weights == null) ? null : interleave(weights);
+		this.turn = new AtomicInteger();
+	}
+
+	/**
+	 * Spreads each lane's turns evenly over a round (smooth weighted
+	 * round-robin), so that no lane waits for a long run of another's turns.
+	 */
+	private static int[] interleave(int[] weights) {
+		int total = 0;
+		for (int weight : weights)
+			total += weight;
+
+		int[] turns = new int[total];
+		int[] current = new int[weights.length];
+		for (int slot = 0; slot < total; slot++) {
+			int best = 0;
+			for (int i = 0; i < weights.length; i++) {
+				current[i] += weights[i];
+				if (current[i] > current[best])
+					best = i;
+			}
+			current[best] -= total;
+			turns[slot] = best;
+		}
+		return turns;
+	}
+
+	/**
+	 * Adds a ready message to the lane of its priority.
+	 *
+	 * @param context
+	 *            the context of the message
+	 */
+	public void add(MessageContext context) {
+		lanes[context.getPriority().ordinal()].add(context);
+	}
+
+	/**
+	 * Removes a message that was added but will not be dispatched.
+	 *
+	 * @param context
+	 *            the context of the message
+	 * @return {@code true} if the message was still queued
+	 */
+	public boolean remove(MessageContext context) {
+		return lanes[context.getPriority().ordinal()].remove(context);
+	}
+
+	/**
+	 * Removes the message to send next.
+	 *
+	 * @return the context of the message, or {@code null} if all lanes are
+	 *         empty
+	 */
+	public MessageContext poll() {
+		if (turns != null) {
+			int lane = turns[(turn.getAndIncrement() & Integer.MAX_VALUE)
+					% turns.length];
+			MessageContext context = lanes[lane].poll();
+			if (context != null)
+				return context;
+		}
+		for (Queue<MessageContext> lane : lanes) {
+			MessageContext context = lane.poll();
+			if (context != null)
+				return context;
+		}
+		return null;
+	}
+}
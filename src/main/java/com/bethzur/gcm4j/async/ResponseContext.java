@@ -29,26 +29,31 @@ class ResponseContext extends AbstractContext<Response, ResultDecision> {
 
 	/**
 	 * Constructs a new {@code ResponseContext} wrapping the given
-	 * {@code FutureResponse} and {@code Response}.
+	 * {@code Completion}, priority, and {@code Response}.
 	 * 
-	 * @param futureResponse
-	 *            the {@code FutureResponse} for the response
+	 * @param completion
+	 *            the {@code Completion} for the response
+	 * @param priority
+	 *            the priority of the message
 	 * @param message
 	 *            the response
 	 */
-	public ResponseContext(FutureResponse futureResponse, Response response) {
-		super(futureResponse, response, ResultDecision.RETURN);
+	public ResponseContext(Completion completion, Priority priority,
+			Response response) {
+		super(completion, priority, response, ResultDecision.RETURN);
 	}
 
 	/**
 	 * Constructs a new {@code AbstractContext} from an existing context,
-	 * object, and initial decision. The future, delay, and internal context map
-	 * are copied. This constructor is useful for transforming, for example, a
+	 * object, and initial decision. The completion, priority, delay, and
+	 * internal context map are copied. This constructor is useful for
+	 * transforming, for example, a
 	 * {@link MessageContext} into a {@code ResponseContext} when the response
 	 * is received.
 	 * 
 	 * @param context
-	 *            the context whose future, delay, and context map to copy.
+	 *            the context whose completion, priority, delay, and context
+	 *            map to copy.
 	 * @param message
 	 *            the response
 	 */
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+
+/**
+ * Receives the outcomes of messages pushed via
+ * {@link AsyncGcmManager#pushMessage(Message, ResultListener)}. Exactly one
+ * method is called for each message, once its handlers have returned the
+ * outcome, on the callback executor configured for the manager (see
+ * {@link AsyncGcmManagerBuilder#callbackExecutor(java.util.concurrent.Executor)}
+ * ).
+ * <p>
+ * A single listener may be shared by any number of messages and must be
+ * thread-safe if the callback executor runs callbacks concurrently.
+ */
+public interface ResultListener {
+
+	/**
+	 * Called with the response from the GCM service.
+	 *
+	 * @param message
+	 *            the pushed message
+	 * @param response
+	 *            the response
+	 */
+	public void onResponse(Message message, Response response);
+
+	/**
+	 * Called with the exception that prevented the message from being sent.
+	 *
+	 * @param message
+	 *            the pushed message
+	 * @param throwable
+	 *            the exception
+	 */
+	public void onThrowable(Message message, Throwable throwable);
+
+	/**
+	 * Called if the message was cancelled, e.g., by a filter.
+	 *
+	 * @param message
+	 *            the pushed message
+	 */
+	public void onCancelled(Message message);
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+/**
+ * The stages through which an {@link AsyncGcmManager} passes each message.
+ * Each stage may run on its own executor (see
+ * {@link AsyncGcmManagerBuilder#transportExecutor(java.util.concurrent.Executor)}
+ * and
+ * {@link AsyncGcmManagerBuilder#handlerExecutor(java.util.concurrent.Executor)}
+ * ), so that each can be sized for its own load.
+ *
+ * @see AsyncGcmManager#getStageStats(Stage)
+ */
+public enum Stage {
+	/**
+	 * Queuing, filtering, and dispatching messages, and holding delayed ones
+	 * until they are due.
+	 */
+	SCHEDULING,
+	/**
+	 * Sending requests to the GCM service.
+	 */
+	TRANSPORT,
+	/**
+	 * Running the response and exception handlers.
+	 */
+	HANDLER
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the tasks of one {@link Stage} on an executor, counting them as they
+ * are submitted, start, and finish to provide {@link StageStats} for any kind
+ * of executor.
+ */
+class StageExecutor implements Executor {
+
+	private final Executor executor;
+
+	private final AtomicLong submitted;
+
+	private final AtomicLong started;
+
+	private final AtomicLong completed;
+
+	private final AtomicLong rejected;
+
+	/**
+	 * Constructs a new stage running on the specified executor.
+	 *
+	 * @param executor
+	 *            the executor running the tasks of the stage
+	 */
+	public StageExecutor(Executor executor) {
+		this.executor = executor;
+		this.submitted = new AtomicLong();
+		this.started = new AtomicLong();
+		this.completed = new AtomicLong();
+		this.rejected = new AtomicLong();
+	}
+
+	@Override
+	public void execute(final Runnable task) {
+		submitted.incrementAndGet();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					started.incrementAndGet();
+					try {
+						task.run();
+					} finally {
+						completed.incrementAndGet();
+					}
+				}
+			});
+		} catch (RuntimeException e) {
+			submitted.decrementAndGet();
+			rejected.incrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a snapshot of the stage's counts.
+	 *
+	 * @return the statistics
+	 */
+	public StageStats getStats() {
+		// Read in reverse order of increment, so no difference is negative
+		long completed = this.completed.get();
+		long started = this.started.get();
+		long submitted = this.submitted.get();
+		return new StageStats(Math.max(0, submitted - started), Math.max(0,
+				started - completed), completed, rejected.get());
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+/**
+ * A snapshot of the tasks of one {@link Stage} of an {@link AsyncGcmManager}.
+ * The counts are read without locking, so a snapshot taken under load is
+ * approximate.
+ *
+ * @see AsyncGcmManager#getStageStats(Stage)
+ */
+public class StageStats {
+
+	private final long queued;
+
+	private final long active;
+
+	private final long completed;
+
+	private final long rejected;
+
+	/**
+	 * Constructs a new snapshot.
+	 *
+	 * @param queued
+	 *            the number of tasks waiting for a thread
+	 * @param active
+	 *            the number of tasks running
+	 * @param completed
+	 *            the number of tasks finished
+	 * @param rejected
+	 *            the number of tasks refused by the executor
+	 */
+	public StageStats(long queued, long active, long completed, long rejected) {
+		this.queued = queued;
+		this.active = active;
+		this.completed = completed;
+		this.rejected = rejected;
+	}
+
+	/**
+	 * Returns the number of tasks submitted to the stage's executor that have
+	 * not yet started, i.e., the length of its queue.
+	 *
+	 * @return the number of queued tasks
+	 */
+	public long getQueued() {
+		return queued;
+	}
+
+	/**
+	 * Returns the number of tasks currently running, i.e., the number of busy
+	 * threads.
+	 *
+	 * @return the number of active tasks
+	 */
+	public long getActive() {
+		return active;
+	}
+
+	public long getCompleted() {
+		return completed;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"StageStats(queued=%d, active=%d, completed=%d, rejected=%d)",
+				queued, active, completed, rejected);
+	}
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the number of accepted messages that have not yet completed and, if
+ * a maximum is configured, applies an {@link OverflowPolicy} when it is
+ * reached.
+ * <p>
+ * A message is counted from {@link #acquire(Completion, Priority)} until its
+ * {@link Completion} is done, so messages waiting in the scheduler, delayed
+ * for retry, or in flight all count against the maximum.
+ */
+class SubmissionLimiter implements Completion.Listener {
+
+	private final OverflowPolicy policy;
+
+	private final long timeoutMillis;
+
+	private final AtomicInteger depth;
+
+	private final AtomicLong completed;
+
+	/**
+	 * The number of threads in {@link #awaitEmpty(long, TimeUnit)}, so that
+	 * {@link #done(Completion)} only takes the monitor when someone waits.
+	 */
+	private final AtomicInteger waiters;
+
+	/**
+	 * One permit per message that may still be accepted, or {@code null} if
+	 * unbounded.
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * Unfinished messages in order of acceptance, indexed by priority, only
+	 * kept for the shedding policies. For {@link OverflowPolicy#SHED_OLDEST},
+	 * all priorities share one set. Guarded by the monitor of this limiter.
+	 */
+	private final LinkedHashSet<Completion>[] unfinished;
+
+	/**
+	 * Constructs a limiter that only counts messages.
+	 */
+	public SubmissionLimiter() {
+		this.policy = null;
+		this.timeoutMillis = 0;
+		this.depth = new AtomicInteger();
+		this.completed = new AtomicLong();
+		this.waiters = new AtomicInteger();
+		this.permits = null;
+		this.unfinished = null;
+	}
+
+	/**
+	 * Constructs a limiter for the specified maximum.
+	 *
+	 * @param maxPending
+	 *            the maximum number of unfinished messages
+	 * @param policy
+	 *            the policy applied when the maximum is reached
+	 * @param timeoutMillis
+	 *            the longest time to block for {@link OverflowPolicy#BLOCK}
+	 */
+	public SubmissionLimiter(int maxPending, OverflowPolicy policy,
+			long timeoutMillis) {
+		this.policy = policy;
+		this.timeoutMillis = timeoutMillis;
+		this.depth = new AtomicInteger();
+		this.completed = new AtomicLong();
+		this.waiters = new AtomicInteger();
+		this.permits = new Semaphore(maxPending);
+		this.unfinished = createUnfinished(policy);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static LinkedHashSet<Completion>[] createUnfinished(
+			OverflowPolicy policy) {
+		int count = Priority.values().length;
+		LinkedHashSet<Completion>[] unfinished = new LinkedHashSet[count];
+		switch (policy) {
+		case SHED_OLDEST:
+			LinkedHashSet<Completion> shared = new LinkedHashSet<Completion>();
+			for (int i = 0; i < count; i++)
+				unfinished[i] = shared;
+			return unfinished;
+		case SHED_LOWEST_PRIORITY:
+			for (int i = 0; i < count; i++)
+				unfinished[i] = new LinkedHashSet<Completion>();
+			return unfinished;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Admits a new message, applying the overflow policy if the maximum has
+	 * been reached.
+	 *
+	 * @param completion
+	 *            the completion of the new message
+	 * @param priority
+	 *            the priority of the new message
+	 * @throws MessageRejectedException
+	 *             if the message is not admitted
+	 */
+	public void acquire(Completion completion, Priority priority)
+			throws MessageRejectedException {
+		if (permits != null) {
+			switch (policy) {
+			case BLOCK:
+				block();
+				break;
+			case REJECT:
+				if (!permits.tryAcquire())
+					throw new MessageRejectedException(
+							"Too many pending messages.");
+				break;
+			case SHED_OLDEST:
+			case SHED_LOWEST_PRIORITY:
+				while (!permits.tryAcquire())
+					shed(priority);
+				synchronized (this) {
+					unfinished[priority.ordinal()].add(completion);
+				}
+				break;
+			}
+		}
+		depth.incrementAndGet();
+	}
+
+	/**
+	 * Admits a new message like {@link #acquire(Completion, Priority)}, but
+	 * returns instead of blocking if the policy is
+	 * {@link OverflowPolicy#BLOCK} and the maximum has been reached.
+	 *
+	 * @param completion
+	 *            the completion of the new message
+	 * @param priority
+	 *            the priority of the new message
+	 * @return {@code true} if the message was admitted, {@code false} if
+	 *         admitting it would block
+	 * @throws MessageRejectedException
+	 *             if the message is not admitted
+	 */
+	public boolean tryAcquire(Completion completion, Priority priority)
+			throws MessageRejectedException {
+		if (permits != null && policy == OverflowPolicy.BLOCK) {
+			if (!permits.tryAcquire())
+				return false;
+			depth.incrementAndGet();
+			return true;
+		}
+		acquire(completion, priority);
+		return true;
+	}
+
+	private void block() throws MessageRejectedException {
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageRejectedException(
+					"Interrupted while waiting for pending messages to complete.");
+		}
+		if (!acquired)
+			throw new MessageRejectedException(String.format(
+					"Too many pending messages after waiting %d ms.",
+					timeoutMillis));
+	}
+
+	/**
+	 * Drops the oldest unfinished message of the lowest priority present, but
+	 * not higher than the specified priority.
+	 */
+	private void shed(Priority priority) throws MessageRejectedException {
+		Completion oldest = null;
+		boolean higherOnly = false;
+		synchronized (this) {
+			for (int i = unfinished.length - 1; i >= 0; i--) {
+				Iterator<Completion> it = unfinished[i].iterator();
+				if (!it.hasNext())
+					continue;
+				if (i < priority.ordinal()) {
+					higherOnly = true;
+				} else {
+					oldest = it.next();
+					it.remove();
+				}
+				break;
+			}
+		}
+		if (oldest != null) {
+			oldest.reject(new MessageRejectedException(
+					"Dropped to admit a newer message."));
+		} else if (higherOnly) {
+			throw new MessageRejectedException(
+					"Too many pending messages of higher priority.");
+		} else {
+			// Permits held by messages still being admitted
+			Thread.yield();
+		}
+	}
+
+	@Override
+	public void done(Completion completion) {
+		completed.incrementAndGet();
+		if (depth.decrementAndGet() == 0 && waiters.get() > 0) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+		if (permits == null)
+			return;
+		if (unfinished != null) {
+			synchronized (this) {
+				for (LinkedHashSet<Completion> set : unfinished) {
+					if (set.remove(completion))
+						break;
+				}
+			}
+		}
+		permits.release();
+	}
+
+	/**
+	 * Returns the number of accepted messages that have not yet completed.
+	 *
+	 * @return the number of pending and in-flight messages
+	 */
+	public int getDepth() {
+		return depth.get();
+	}
+
+	/**
+	 * Returns the number of accepted messages that have completed.
+	 *
+	 * @return the number of completed messages
+	 */
+	public long getCompleted() {
+		return completed.get();
+	}
+
+	/**
+	 * Waits until no accepted message is unfinished.
+	 *
+	 * @param timeout
+	 *            the longest time to wait
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return {@code true} if no message is unfinished, {@code false} if the
+	 *         timeout elapsed first
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 */
+	public boolean awaitEmpty(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		long start = System.nanoTime();
+		waiters.incrementAndGet();
+		try {
+			synchronized (this) {
+				while (depth.get() > 0) {
+					long remaining = nanos - (System.nanoTime() - start);
+					if (remaining <= 0)
+						return false;
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+				return true;
+			}
+		} finally {
+			waiters.decrementAndGet();
+		}
+	}
+}
@@ -28,26 +28,31 @@ class ThrowableContext extends AbstractContext<Throwable, ResultDecision> {
 
 	/**
 	 * Constructs a new {@code ThrowableContext} wrapping the given
-	 * {@code FutureResponse} and {@code Throwable}.
+	 * {@code Completion}, priority, and {@code Throwable}.
 	 * 
-	 * @param futureResponse
-	 *            the {@code FutureResponse} for the throwable
+	 * @param completion
+	 *            the {@code Completion} for the throwable
+	 * @param priority
+	 *            the priority of the message
 	 * @param message
 	 *            the throwable
 	 */
-	public ThrowableContext(FutureResponse futureResponse, Throwable throwable) {
-		super(futureResponse, throwable, ResultDecision.RETURN);
+	public ThrowableContext(Completion completion, Priority priority,
+			Throwable throwable) {
+		super(completion, priority, throwable, ResultDecision.RETURN);
 	}
 
 	/**
 	 * Constructs a new {@code AbstractContext} from an existing context,
-	 * object, and initial decision. The future, delay, and internal context map
-	 * are copied. This constructor is useful for transforming, for example, a
+	 * object, and initial decision. The completion, priority, delay, and
+	 * internal context map are copied. This constructor is useful for
+	 * transforming, for example, a
 	 * {@link MessageContext} into a {@code ThrowableContext} when the exception
 	 * is caught.
 	 * 
 	 * @param context
-	 *            the context whose future, delay, and context map to copy.
+	 *            the context whose completion, priority, delay, and context
+	 *            map to copy.
 	 * @param message
 	 *            the throwable
 	 */
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Provides executors running each task on a new virtual thread. Virtual
+ * threads were added in Java 21, so they are looked up reflectively and the
+ * library still runs on older JVMs.
+ */
+final class VirtualThreads {
+
+	private static final Method NEW_PER_TASK_EXECUTOR = findPerTaskExecutor();
+
+	/**
+	 * Should not be instantiated.
+	 */
+	private VirtualThreads() {
+		throw new IllegalStateException();
+	}
+
+	private static Method findPerTaskExecutor() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether the JVM supports virtual threads.
+	 *
+	 * @return {@code true} if virtual threads are available
+	 */
+	public static boolean isAvailable() {
+		return NEW_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Creates an executor that runs each task on a new virtual thread.
+	 *
+	 * @return the executor
+	 * @throws UnsupportedOperationException
+	 *             if the JVM does not support virtual threads
+	 */
+	public static ExecutorService newPerTaskExecutor() {
+		if (NEW_PER_TASK_EXECUTOR == null)
+			throw new UnsupportedOperationException(
+					"Virtual threads require Java 21 or newer.");
+		try {
+			return (ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			// E.g., a preview release without --enable-preview
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+}
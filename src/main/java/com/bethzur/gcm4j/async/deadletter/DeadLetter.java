@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.deadletter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.ResponseType;
+import com.bethzur.gcm4j.async.Priority;
+
+/**
+ * A message that failed permanently, with the outcome that ended it and the
+ * outcomes of its earlier attempts.
+ */
+public final class DeadLetter {
+
+	private final Message message;
+
+	private final Priority priority;
+
+	private final ResponseType responseType;
+
+	private final String failure;
+
+	private final int attempts;
+
+	private final List<String> history;
+
+	private final long enqueueTime;
+
+	private final long failedTime;
+
+	/**
+	 * Constructs a new dead letter.
+	 *
+	 * @param message
+	 *            the failed message
+	 * @param priority
+	 *            the priority with which the message was pushed
+	 * @param responseType
+	 *            the type of the final response, or {@code null} if the
+	 *            message failed with an exception
+	 * @param failure
+	 *            a description of the final exception, or {@code null} if the
+	 *            message failed with a response
+	 * @param attempts
+	 *            the number of send attempts
+	 * @param history
+	 *            the outcome of each attempt, oldest first
+	 * @param enqueueTime
+	 *            the time the message was pushed, in milliseconds since the
+	 *            epoch
+	 * @param failedTime
+	 *            the time the message failed, in milliseconds since the epoch
+	 */
+	public DeadLetter(Message message, Priority priority,
+			ResponseType responseType, String failure, int attempts,
+			List<String> history, long enqueueTime, long failedTime) {
+		if (message == null)
+			throw new IllegalArgumentException(
+					"Argument 'message' may not be null.");
+		if (priority == null)
+			throw new IllegalArgumentException(
+					"Argument 'priority' may not be null.");
+		this.message = message;
+		this.priority = priority;
+		this.responseType = responseType;
+		this.failure = failure;
+		this.attempts = attempts;
+		this.history = Collections.unmodifiableList(new ArrayList<String>(
+				history));
+		this.enqueueTime = enqueueTime;
+		this.failedTime = failedTime;
+	}
+
+	/**
+	 * Gets the failed message.
+	 *
+	 * @return the message
+	 */
+	public Message getMessage() {
+		return message;
+	}
+
+	/**
+	 * Gets the priority with which the message was pushed.
+	 *
+	 * @return the priority
+	 */
+	public Priority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Gets the type of the final response.
+	 *
+	 * @return the response type, or {@code null} if the message failed with an
+	 *         exception
+	 */
+	public ResponseType getResponseType() {
+		return responseType;
+	}
+
+	/**
+	 * Gets a description of the final exception.
+	 *
+	 * @return the exception's class name and message, or {@code null} if the
+	 *         message failed with a response
+	 */
+	public String getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Gets the number of send attempts.
+	 *
+	 * @return the number of attempts
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * Gets the outcome of each attempt, oldest first: the response type or
+	 * the description of the exception.
+	 *
+	 * @return the outcomes of the attempts
+	 */
+	public List<String> getHistory() {
+		return history;
+	}
+
+	/**
+	 * Gets the time the message was pushed.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getEnqueueTime() {
+		return enqueueTime;
+	}
+
+	/**
+	 * Gets the time the message failed.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getFailedTime() {
+		return failedTime;
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("DeadLetter(message=%s, priority=%s, responseType=%s, failure=%s, attempts=%d, history=%s)",
+						message, priority, responseType, failure, attempts,
+						history);
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.deadletter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.ResponseType;
+import com.bethzur.gcm4j.async.handler.AsyncHandlers;
+import com.bethzur.gcm4j.async.handler.Context;
+import com.bethzur.gcm4j.async.handler.MessageDecision;
+import com.bethzur.gcm4j.async.handler.MessageFilter;
+import com.bethzur.gcm4j.async.handler.ResponseHandler;
+import com.bethzur.gcm4j.async.handler.ResultDecision;
+import com.bethzur.gcm4j.async.handler.ThrowableHandler;
+
+/**
+ * Handler that writes messages that failed permanently to a
+ * {@link DeadLetterSink}.
+ * <p>
+ * The outcome of each attempt is recorded. When a message is finally returned
+ * with one of the failure response types or with an exception, it is written
+ * to the sink along with its attempt history. By default the failure types
+ * are those that may succeed if the message is sent again later:
+ * {@code InternalError}, {@code ServiceUnavailable}, {@code QuotaExceeded},
+ * {@code DeviceQuotaExceeded}, and {@code Unauthorized}. Responses such as
+ * {@code NotRegistered} say the message can never be delivered and are not
+ * worth keeping.
+ * <p>
+ * This handler sees the final decision only if it runs after the handlers
+ * that make it, so register it last. A sink that fails to write is logged and
+ * otherwise ignored.
+ */
+public class DeadLetterHandler implements MessageFilter,
+		ResponseHandler<Response>, ThrowableHandler<Throwable> {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(DeadLetterHandler.class);
+
+	static final String CONTEXT_KEY = DeadLetterHandler.class
+			.getCanonicalName();
+
+	private static final Set<ResponseType> DEFAULT_FAILURE_TYPES = Collections
+			.unmodifiableSet(EnumSet.of(ResponseType.InternalError,
+					ResponseType.ServiceUnavailable,
+					ResponseType.QuotaExceeded,
+					ResponseType.DeviceQuotaExceeded,
+					ResponseType.Unauthorized));
+
+	private final DeadLetterSink sink;
+
+	private final Set<ResponseType> failureTypes;
+
+	/**
+	 * Constructs a new handler writing the default failure types to the
+	 * specified sink.
+	 *
+	 * @param sink
+	 *            the sink to which to write dead letters
+	 */
+	public DeadLetterHandler(DeadLetterSink sink) {
+		this(sink, DEFAULT_FAILURE_TYPES);
+	}
+
+	/**
+	 * Constructs a new handler writing the specified failure types to the
+	 * specified sink.
+	 *
+	 * @param sink
+	 *            the sink to which to write dead letters
+	 * @param failureTypes
+	 *            the response types that are failures
+	 */
+	public DeadLetterHandler(DeadLetterSink sink, Set<ResponseType> failureTypes) {
+		if (sink == null)
+			throw new IllegalArgumentException(
+					"Argument 'sink' may not be null.");
+		this.sink = sink;
+		this.failureTypes = failureTypes.isEmpty() ? EnumSet
+				.noneOf(ResponseType.class) : EnumSet.copyOf(failureTypes);
+	}
+
+	/**
+	 * Constructs a new handler writing the default failure types to the
+	 * specified sink and registers it with the provided {@link AsyncHandlers}
+	 * instance.
+	 *
+	 * @param sink
+	 *            the sink to which to write dead letters
+	 * @param handlers
+	 *            the handlers object with which to register the filter and
+	 *            handlers
+	 */
+	public DeadLetterHandler(DeadLetterSink sink, AsyncHandlers handlers) {
+		this(sink);
+		register(handlers);
+	}
+
+	/**
+	 * Constructs a new handler writing the specified failure types to the
+	 * specified sink and registers it with the provided {@link AsyncHandlers}
+	 * instance.
+	 *
+	 * @param sink
+	 *            the sink to which to write dead letters
+	 * @param failureTypes
+	 *            the response types that are failures
+	 * @param handlers
+	 *            the handlers object with which to register the filter and
+	 *            handlers
+	 */
+	public DeadLetterHandler(DeadLetterSink sink,
+			Set<ResponseType> failureTypes, AsyncHandlers handlers) {
+		this(sink, failureTypes);
+		register(handlers);
+	}
+
+	private void register(AsyncHandlers handlers) {
+		handlers.appendDequeueFilter(this);
+		for (ResponseType type : ResponseType.values()) {
+			handlers.appendResponseHandler(type, this);
+		}
+		handlers.appendThrowableHandlerForSubclasses(Throwable.class, this);
+	}
+
+	// ------------------------- Filter Messages ------------------------------
+	@Override
+	public void enqueueFilter(Context<Message, MessageDecision> context) {
+		// Nothing to do
+	}
+
+	@Override
+	public void dequeueFilter(Context<Message, MessageDecision> context) {
+		State state = context.get(CONTEXT_KEY, State.class);
+		if (state == null) {
+			state = new State();
+			context.put(CONTEXT_KEY, state);
+		}
+		// Keep the message as sent, e.g., with its remaining time to live
+		state.message = context.unwrap();
+	}
+
+	// ------------------------- Handle Responses -----------------------------
+	@Override
+	public void handleResponse(Context<Response, ResultDecision> context) {
+		ResponseType type = context.unwrap().getResponseType();
+		State state = record(context, type.name());
+		if (context.getDecision() == ResultDecision.RETURN
+				&& failureTypes.contains(type)) {
+			Message message = state.message != null ? state.message : context
+					.unwrap().getMessage();
+			write(context, message, state, type, null);
+		}
+	}
+
+	// ------------------------- Handle Throwables ----------------------------
+	@Override
+	public void handleThrowable(Context<Throwable, ResultDecision> context) {
+		String failure = context.unwrap().toString();
+		State state = record(context, failure);
+		if (context.getDecision() == ResultDecision.RETURN) {
+			if (state.message == null) {
+				LOGGER.warn("No message recorded for failure {}.  Dropping dead letter.",
+						failure);
+				return;
+			}
+			write(context, state.message, state, null, failure);
+		}
+	}
+
+	private State record(Context<?, ResultDecision> context, String outcome) {
+		State state = context.get(CONTEXT_KEY, State.class);
+		if (state == null) {
+			state = new State();
+			context.put(CONTEXT_KEY, state);
+		}
+		state.history.add(outcome);
+		return state;
+	}
+
+	private void write(Context<?, ResultDecision> context, Message message,
+			State state, ResponseType type, String failure) {
+		DeadLetter letter = new DeadLetter(message, context.getPriority(),
+				type, failure, context.getAttempts(), state.history,
+				context.getEnqueueTime(), System.currentTimeMillis());
+		try {
+			sink.write(letter);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to write dead letter {}.", letter, e);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Unexpected RuntimeException while writing dead letter {}.",
+					letter, e);
+		}
+	}
+
+	/**
+	 * The message and the outcome of each attempt, kept in the context across
+	 * retries.
+	 */
+	private static class State {
+		private Message message;
+
+		private final List<String> history = new ArrayList<String>();
+	}
+}
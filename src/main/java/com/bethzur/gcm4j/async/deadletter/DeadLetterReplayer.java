@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.deadletter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.async.AsyncGcmManager;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Utility for sending dead letters again, e.g., after an outage has ended.
+ * <p>
+ * Letters are pushed with their original priority, at no more than a fixed
+ * rate so a large backlog does not trip the throttles or quotas that failed
+ * it in the first place. Letters that fail again reach the dead-letter sink
+ * again, if one is registered.
+ */
+public final class DeadLetterReplayer {
+
+	private DeadLetterReplayer() {
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Pushes each letter to the manager, blocking as needed to stay under the
+	 * specified rate.
+	 *
+	 * @param manager
+	 *            the manager to which to push the letters
+	 * @param letters
+	 *            the letters to replay
+	 * @param permitsPerSecond
+	 *            the maximum number of letters to push per second
+	 * @return the futures for the responses, in the order of the letters
+	 */
+	public static List<ListenableFuture<Response>> replay(
+			AsyncGcmManager manager, Iterable<DeadLetter> letters,
+			double permitsPerSecond) {
+		if (manager == null)
+			throw new IllegalArgumentException(
+					"Argument 'manager' may not be null.");
+		if (!(permitsPerSecond > 0))
+			throw new IllegalArgumentException(
+					"Argument 'permitsPerSecond' must be positive.");
+		RateLimiter limiter = RateLimiter.create(permitsPerSecond);
+		List<ListenableFuture<Response>> futures = new ArrayList<ListenableFuture<Response>>();
+		for (DeadLetter letter : letters) {
+			limiter.acquire();
+			futures.add(manager.pushMessage(letter.getMessage(),
+					letter.getPriority()));
+		}
+		return futures;
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.deadletter;
+
+import java.io.IOException;
+
+/**
+ * Destination for messages that failed permanently, so they can be inspected
+ * and replayed later instead of being lost.
+ *
+ * @see DeadLetterHandler
+ * @see FileDeadLetterSink
+ */
+public interface DeadLetterSink {
+
+	/**
+	 * Stores a dead letter. Called from the threads handling responses, so it
+	 * should not block for long; it need not be durable when this method
+	 * returns.
+	 *
+	 * @param letter
+	 *            the dead letter
+	 * @throws IOException
+	 *             if the letter could not be stored
+	 */
+	void write(DeadLetter letter) throws IOException;
+}
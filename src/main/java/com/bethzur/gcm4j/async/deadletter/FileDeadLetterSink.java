@@ -0,0 +1,407 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.deadletter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.ResponseType;
+import com.bethzur.gcm4j.async.Priority;
+import com.bethzur.gcm4j.util.MessageCodec;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * {@link DeadLetterSink} that appends dead letters to a local file.
+ * <p>
+ * Each record holds its length, a CRC-32 checksum, and the encoded letter.
+ * Writes go to a buffer that a background thread flushes and syncs to disk at
+ * a fixed interval, so handlers never wait on the disk and a burst of failures
+ * costs one sync. Letters written since the last flush are lost if the
+ * process dies. Reading stops at the first torn record or checksum mismatch,
+ * as the framing after it cannot be trusted. On opening, the file is
+ * truncated to the end of its last valid record, so a record torn by a crash
+ * does not garble the letters written after the restart.
+ * <p>
+ * {@link #readAll()} returns the letters in the file. {@link #drain()} moves
+ * them to a pending file next to it, e.g., before
+ * {@link DeadLetterReplayer replaying} them, and new letters go to a new
+ * file. The pending letters are deleted by {@link #acknowledge()} once they
+ * have been handled; until then, each drain, including one after a restart,
+ * returns them again. Call {@link #close()} to flush the remaining letters
+ * and stop the background thread.
+ */
+public class FileDeadLetterSink implements DeadLetterSink, Closeable {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(FileDeadLetterSink.class);
+
+	/**
+	 * The default interval between flushes in milliseconds.
+	 */
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+	private static final byte VERSION = 2;
+
+	private static final String PENDING_SUFFIX = ".pending";
+
+	private static final int MAX_RECORD_SIZE = 1 << 24;
+
+	private final File file;
+
+	private final File pending;
+
+	private final ScheduledExecutorService flusher;
+
+	// Guarded by this
+	private FileOutputStream stream;
+
+	// Guarded by this
+	private DataOutputStream out;
+
+	// Guarded by this
+	private boolean dirty;
+
+	// Guarded by this
+	private boolean closed;
+
+	/**
+	 * Constructs a new sink appending to the specified file with the default
+	 * flush interval.
+	 *
+	 * @param file
+	 *            the file, created if it does not exist
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	public FileDeadLetterSink(File file) throws IOException {
+		this(file, DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Constructs a new sink appending to the specified file with the
+	 * specified flush interval.
+	 *
+	 * @param file
+	 *            the file, created if it does not exist
+	 * @param flushIntervalMillis
+	 *            the interval between flushes in milliseconds
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	public FileDeadLetterSink(File file, long flushIntervalMillis)
+			throws IOException {
+		if (file == null)
+			throw new IllegalArgumentException(
+					"Argument 'file' may not be null.");
+		if (flushIntervalMillis < 1)
+			throw new IllegalArgumentException(
+					"Argument 'flushIntervalMillis' must be positive.");
+		this.file = file;
+		this.pending = new File(file.getPath() + PENDING_SUFFIX);
+		open();
+		this.flusher = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+						.setDaemon(true).setNameFormat("gcm4j-dead-letter-%d")
+						.build());
+		this.flusher.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					flush();
+				} catch (IOException e) {
+					LOGGER.warn("Unable to flush dead letters.", e);
+				}
+			}
+		}, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void write(DeadLetter letter) throws IOException {
+		byte[] body = encode(letter);
+		CRC32 crc = new CRC32();
+		crc.update(body);
+		synchronized (this) {
+			if (closed)
+				throw new IOException("Sink has been closed.");
+			out.writeInt(body.length);
+			out.writeInt((int) crc.getValue());
+			out.write(body);
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Flushes buffered letters and syncs them to disk.
+	 *
+	 * @throws IOException
+	 *             if the letters could not be written
+	 */
+	public synchronized void flush() throws IOException {
+		if (closed || !dirty)
+			return;
+		out.flush();
+		stream.getFD().sync();
+		dirty = false;
+	}
+
+	/**
+	 * Reads the letters in the file, including those not yet flushed.
+	 *
+	 * @return the letters, oldest first
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public synchronized List<DeadLetter> readAll() throws IOException {
+		if (!closed)
+			out.flush();
+		return read(file);
+	}
+
+	/**
+	 * Moves the letters in the file to the pending file and returns them. If
+	 * the letters of an earlier drain have not been acknowledged, returns
+	 * those instead and leaves the file as is.
+	 *
+	 * @return the pending letters, oldest first
+	 * @throws IOException
+	 *             if the file could not be moved or read
+	 */
+	public synchronized List<DeadLetter> drain() throws IOException {
+		if (closed)
+			throw new IOException("Sink has been closed.");
+		if (!pending.exists()) {
+			out.flush();
+			stream.getFD().sync();
+			dirty = false;
+			// Close first, as an open file cannot be renamed everywhere
+			out.close();
+			boolean moved = file.renameTo(pending);
+			try {
+				open();
+			} catch (IOException e) {
+				closed = true;
+				flusher.shutdown();
+				throw e;
+			}
+			if (!moved)
+				throw new IOException("Unable to move dead letters to "
+						+ pending + ".");
+		}
+		return read(pending);
+	}
+
+	/**
+	 * Deletes the letters returned by {@link #drain()}, once they have been
+	 * handled, e.g., replayed.
+	 *
+	 * @throws IOException
+	 *             if the pending file could not be deleted
+	 */
+	public synchronized void acknowledge() throws IOException {
+		if (pending.exists() && !pending.delete())
+			throw new IOException("Unable to delete drained dead letters "
+					+ pending + ".");
+	}
+
+	/**
+	 * Opens the file for appending. Must hold the lock, unless constructing.
+	 */
+	private void open() throws IOException {
+		long valid = file.exists() ? scan(file, null) : 0;
+		stream = new FileOutputStream(file, true);
+		try {
+			FileChannel channel = stream.getChannel();
+			if (channel.size() > valid) {
+				LOGGER.warn("Truncating {} after its last valid dead letter.",
+						file);
+				channel.truncate(valid);
+				channel.force(true);
+			}
+		} catch (IOException e) {
+			stream.close();
+			throw e;
+		}
+		out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+	}
+
+	/**
+	 * Flushes the remaining letters, stops the background thread, and closes
+	 * the file.
+	 *
+	 * @throws IOException
+	 *             if the letters could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		flusher.shutdown();
+		synchronized (this) {
+			if (closed)
+				return;
+			try {
+				flush();
+			} finally {
+				closed = true;
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads the letters in a file written by a {@code FileDeadLetterSink}.
+	 *
+	 * @param file
+	 *            the file
+	 * @return the letters, oldest first, or an empty list if the file does
+	 *         not exist
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public static List<DeadLetter> read(File file) throws IOException {
+		if (!file.exists())
+			return Collections.emptyList();
+		List<DeadLetter> letters = new ArrayList<DeadLetter>();
+		scan(file, letters);
+		return letters;
+	}
+
+	/**
+	 * Reads the records of a file up to the first one that is torn or
+	 * corrupt.
+	 *
+	 * @param letters
+	 *            the list to which to add the letters, or {@code null} to
+	 *            only find the end of the valid records
+	 * @return the length of the valid records
+	 */
+	private static long scan(File file, List<DeadLetter> letters)
+			throws IOException {
+		long valid = 0;
+		InputStream stream = new FileInputStream(file);
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					stream));
+			while (true) {
+				int length;
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				byte[] body;
+				int checksum;
+				try {
+					if (length < 0 || length > MAX_RECORD_SIZE)
+						throw new EOFException();
+					checksum = in.readInt();
+					body = new byte[length];
+					in.readFully(body);
+				} catch (EOFException e) {
+					LOGGER.warn("Torn dead letter at end of {}.  Ignoring.",
+							file);
+					break;
+				}
+				CRC32 crc = new CRC32();
+				crc.update(body);
+				if ((int) crc.getValue() != checksum) {
+					// The framing of the following records cannot be trusted
+					LOGGER.warn(
+							"Corrupt dead letter in {} at offset {}.  Ignoring the rest of the file.",
+							file, valid);
+					break;
+				}
+				valid += 8 + length;
+				if (letters == null)
+					continue;
+				try {
+					letters.add(decode(body));
+				} catch (IOException e) {
+					LOGGER.warn("Invalid dead letter in {}.  Skipping.", file,
+							e);
+				}
+			}
+		} finally {
+			stream.close();
+		}
+		return valid;
+	}
+
+	private static byte[] encode(DeadLetter letter) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(VERSION);
+		MessageCodec.writeEnum(out, letter.getPriority());
+		MessageCodec.write(out, letter.getMessage());
+		MessageCodec.writeEnum(out, letter.getResponseType());
+		MessageCodec.writeString(out, letter.getFailure());
+		out.writeInt(letter.getAttempts());
+		out.writeInt(letter.getHistory().size());
+		for (String outcome : letter.getHistory())
+			MessageCodec.writeString(out, outcome);
+		out.writeLong(letter.getEnqueueTime());
+		out.writeLong(letter.getFailedTime());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static DeadLetter decode(byte[] body) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				body));
+		try {
+			if (in.readByte() != VERSION)
+				throw new IOException("Unknown dead letter version.");
+			Priority priority = MessageCodec.readEnum(in, Priority.class);
+			if (priority == null)
+				throw new IOException("Missing priority.");
+			Message message = MessageCodec.read(in);
+			ResponseType responseType = MessageCodec.readEnum(in,
+					ResponseType.class);
+			String failure = MessageCodec.readString(in);
+			int attempts = in.readInt();
+			int outcomes = in.readInt();
+			List<String> history = new ArrayList<String>();
+			for (int i = 0; i < outcomes; i++)
+				history.add(MessageCodec.readString(in));
+			long enqueueTime = in.readLong();
+			long failedTime = in.readLong();
+			return new DeadLetter(message, priority, responseType, failure,
+					attempts, history, enqueueTime, failedTime);
+		} catch (EOFException e) {
+			throw new IOException("Truncated dead letter.", e);
+		}
+	}
+}
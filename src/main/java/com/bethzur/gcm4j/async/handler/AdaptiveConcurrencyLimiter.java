@@ -0,0 +1,412 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.handler;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.ResponseType;
+
+/**
+ * A dispatch gate, response handler, and throwable handler that adapts the
+ * number of messages in flight to the capacity of the GCM service, using
+ * additive increase and multiplicative decrease.
+ * <p>
+ * Each dispatch takes an in-flight permit before a message is taken from its
+ * lane. If the limit is reached, the messages stay in their lanes and the
+ * waiting dispatches are retried, oldest first, as permits are returned, so
+ * higher-priority messages are still sent first. The permit is bound to the
+ * message once it has passed the dequeue filters, and returned when the
+ * response or exception is handled, when the message is not sent after all,
+ * or when the dispatch takes no message. While responses arrive with
+ * latency close to the lowest recently observed and the permits are in use,
+ * the limit grows by about one per round trip. A
+ * {@link ResponseType#ServiceUnavailable ServiceUnavailable},
+ * {@link ResponseType#QuotaExceeded QuotaExceeded}, or
+ * {@link ResponseType#InternalError InternalError} response, an
+ * {@link IOException}, or a latency more than twice the baseline cuts the
+ * limit by a tenth, at most once per round trip.
+ * <p>
+ * Permits not returned within two minutes, e.g., for requests whose outcome
+ * is never reported, are reclaimed while messages wait.
+ */
+public class AdaptiveConcurrencyLimiter implements DispatchGate,
+		ResponseHandler<Response>, ThrowableHandler<Throwable> {
+	static final String CONTEXT_KEY = AdaptiveConcurrencyLimiter.class
+			.getCanonicalName();
+
+	/**
+	 * The default initial limit.
+	 */
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+	/**
+	 * The default lower bound on the limit.
+	 */
+	public static final int DEFAULT_MIN_LIMIT = 1;
+
+	/**
+	 * The default upper bound on the limit.
+	 */
+	public static final int DEFAULT_MAX_LIMIT = 1000;
+
+	private static final double BACKOFF_RATIO = 0.9;
+
+	private static final double LATENCY_TOLERANCE = 2.0;
+
+	/**
+	 * Latency below which jitter is not taken as a sign of overload.
+	 */
+	private static final long LATENCY_FLOOR_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(1);
+
+	/**
+	 * The number of samples after which the baseline latency is measured
+	 * anew, so it follows lasting changes in the service's latency.
+	 */
+	private static final int BASELINE_SAMPLES = 1000;
+
+	private static final long LEASE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+	private static final long RECLAIM_INTERVAL_NANOS = TimeUnit.SECONDS
+			.toNanos(1);
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final AtomicInteger inFlight;
+
+	private final Set<Permit> permits;
+
+	private final Queue<DispatchGate.Wakeup> waiters;
+
+	/**
+	 * The number of permits taken for woken dispatches and not yet claimed.
+	 */
+	private final AtomicInteger reserved;
+
+	private final AtomicLong lastReclaim;
+
+	private volatile int limit;
+
+	// Guarded by this
+	private double estimate;
+
+	private long baselineNanos;
+
+	private int samples;
+
+	private long lastDecrease;
+
+	/**
+	 * Constructs a new limiter with the default initial limit and bounds.
+	 */
+	public AdaptiveConcurrencyLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+	}
+
+	/**
+	 * Constructs a new limiter with the specified initial limit and bounds.
+	 * 
+	 * @param initialLimit
+	 *            the initial number of messages allowed in flight
+	 * @param minLimit
+	 *            the lower bound on the limit
+	 * @param maxLimit
+	 *            the upper bound on the limit
+	 */
+	public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit,
+			int maxLimit) {
+		if (minLimit < 1)
+			throw new IllegalArgumentException(
+					"Argument 'minLimit' must be positive.");
+		if (maxLimit < minLimit)
+			throw new IllegalArgumentException(
+					"Argument 'maxLimit' may not be less than 'minLimit'.");
+		if (initialLimit < minLimit || initialLimit > maxLimit)
+			throw new IllegalArgumentException(
+					"Argument 'initialLimit' must be between 'minLimit' and 'maxLimit'.");
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.inFlight = new AtomicInteger();
+		this.permits = Collections
+				.newSetFromMap(new ConcurrentHashMap<Permit, Boolean>());
+		this.waiters = new ConcurrentLinkedQueue<DispatchGate.Wakeup>();
+		this.reserved = new AtomicInteger();
+		long now = System.nanoTime();
+		this.lastReclaim = new AtomicLong(now);
+		this.limit = initialLimit;
+		this.estimate = initialLimit;
+		this.lastDecrease = now;
+	}
+
+	/**
+	 * Constructs a new limiter with the default initial limit and bounds and
+	 * registers the underlying filters and handlers with the provided
+	 * {@link AsyncHandlers} instance.
+	 * 
+	 * @param handlers
+	 *            the handlers object with which to register the filters and
+	 *            handlers
+	 */
+	public AdaptiveConcurrencyLimiter(AsyncHandlers handlers) {
+		this();
+		register(handlers);
+	}
+
+	/**
+	 * Constructs a new limiter with the specified initial limit and bounds and
+	 * registers the underlying filters and handlers with the provided
+	 * {@link AsyncHandlers} instance.
+	 * 
+	 * @param initialLimit
+	 *            the initial number of messages allowed in flight
+	 * @param minLimit
+	 *            the lower bound on the limit
+	 * @param maxLimit
+	 *            the upper bound on the limit
+	 * @param handlers
+	 *            the handlers object with which to register the filters and
+	 *            handlers
+	 */
+	public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit,
+			int maxLimit, AsyncHandlers handlers) {
+		this(initialLimit, minLimit, maxLimit);
+		register(handlers);
+	}
+
+	private void register(AsyncHandlers handlers) {
+		handlers.appendDispatchGate(this);
+		for (ResponseType type : ResponseType.values()) {
+			handlers.appendResponseHandler(type, this);
+		}
+		handlers.appendThrowableHandlerForSubclasses(Throwable.class, this);
+	}
+
+	/**
+	 * Gets the current number of messages allowed in flight.
+	 * 
+	 * @return the current limit
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Gets the number of permits taken, by messages in flight or about to be
+	 * sent.
+	 * 
+	 * @return the number of messages in flight
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Gets the number of dispatches waiting until a permit is available.
+	 * 
+	 * @return the number of waiting dispatches
+	 */
+	public int getWaiting() {
+		return waiters.size();
+	}
+
+	// ------------------------- Admit Messages -------------------------------
+	@Override
+	public boolean tryAcquire(DispatchGate.Wakeup wakeup) {
+		if (claimReserved() || take(System.nanoTime()))
+			return true;
+		waiters.add(wakeup);
+		// Recheck, as a permit returned before the waiter was queued did not
+		// see it
+		wakeWaiters();
+		return false;
+	}
+
+	@Override
+	public void admit(Context<Message, MessageDecision> context) {
+		Permit permit = new Permit(System.nanoTime());
+		permits.add(permit);
+		context.put(CONTEXT_KEY, permit);
+	}
+
+	@Override
+	public void cancel() {
+		inFlight.decrementAndGet();
+		wakeWaiters();
+	}
+
+	@Override
+	public void release(Context<Message, MessageDecision> context) {
+		if (returnPermit(context) != null)
+			wakeWaiters();
+	}
+
+	/**
+	 * Takes free permits for the waiting dispatches and wakes them, oldest
+	 * first.
+	 */
+	private void wakeWaiters() {
+		while (!waiters.isEmpty()) {
+			if (!take(System.nanoTime()))
+				return;
+			DispatchGate.Wakeup waiter = waiters.poll();
+			if (waiter == null) {
+				// Taken by a concurrent call
+				inFlight.decrementAndGet();
+				continue;
+			}
+			reserved.incrementAndGet();
+			waiter.wake();
+		}
+	}
+
+	/**
+	 * Claims a permit taken for a woken dispatch. Any dispatch may claim it;
+	 * a woken dispatch that finds none waits again.
+	 */
+	private boolean claimReserved() {
+		while (true) {
+			int n = reserved.get();
+			if (n == 0)
+				return false;
+			if (reserved.compareAndSet(n, n - 1))
+				return true;
+		}
+	}
+
+	private boolean take(long now) {
+		while (true) {
+			int n = inFlight.get();
+			if (n >= limit) {
+				if (!reclaimExpired(now))
+					return false;
+			} else if (inFlight.compareAndSet(n, n + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the permits whose lease has expired, at most once per reclaim
+	 * interval.
+	 * 
+	 * @return {@code true} if any permits were reclaimed
+	 */
+	private boolean reclaimExpired(long now) {
+		long last = lastReclaim.get();
+		if (now - last < RECLAIM_INTERVAL_NANOS
+				|| !lastReclaim.compareAndSet(last, now))
+			return false;
+		boolean reclaimed = false;
+		for (Permit permit : permits) {
+			if (now - permit.start > LEASE_NANOS && permits.remove(permit)) {
+				inFlight.decrementAndGet();
+				reclaimed = true;
+			}
+		}
+		return reclaimed;
+	}
+
+	// ------------------------- Handle Responses -----------------------------
+	@Override
+	public void handleResponse(Context<Response, ResultDecision> context) {
+		switch (context.unwrap().getResponseType()) {
+		case ServiceUnavailable:
+		case QuotaExceeded:
+		case InternalError:
+			release(context, true);
+			return;
+		default:
+			release(context, false);
+			return;
+		}
+	}
+
+	// ------------------------- Handle Throwables ----------------------------
+	@Override
+	public void handleThrowable(Context<Throwable, ResultDecision> context) {
+		release(context, context.unwrap() instanceof IOException);
+	}
+
+	private void release(Context<?, ResultDecision> context, boolean overload) {
+		Permit permit = returnPermit(context);
+		if (permit == null)
+			return;
+		update(permit.start, System.nanoTime(), overload);
+		wakeWaiters();
+	}
+
+	/**
+	 * Returns the permit held by a message, if any.
+	 * 
+	 * @return the returned permit, or {@code null} if the message held none
+	 */
+	private Permit returnPermit(Context<?, ?> context) {
+		Permit permit = context.get(CONTEXT_KEY, Permit.class);
+		if (permit == null)
+			return null;
+		context.put(CONTEXT_KEY, null);
+		if (!permits.remove(permit))
+			return null; // Already reclaimed
+		inFlight.decrementAndGet();
+		return permit;
+	}
+
+	private synchronized void update(long start, long now, boolean overload) {
+		if (!overload) {
+			long latency = now - start;
+			if (samples++ % BASELINE_SAMPLES == 0 || latency < baselineNanos)
+				baselineNanos = latency;
+			overload = latency > LATENCY_FLOOR_NANOS
+					&& latency > baselineNanos * LATENCY_TOLERANCE;
+		}
+
+		if (overload) {
+			// Sent before the last decrease, so already accounted for
+			if (start - lastDecrease < 0)
+				return;
+			lastDecrease = now;
+			estimate = Math.max(minLimit, estimate * BACKOFF_RATIO);
+		} else if (inFlight.get() * 2 >= limit) {
+			estimate = Math.min(maxLimit, estimate + 1 / estimate);
+		}
+		limit = (int) estimate;
+	}
+
+	/**
+	 * An in-flight permit held by a message.
+	 */
+	private static class Permit {
+
+		final long start;
+
+		public Permit(long start) {
+			this.start = start;
+		}
+	}
+
+}
@@ -78,6 +78,30 @@ public interface AsyncHandlers {
 	public <T extends Throwable> void appendThrowableHandler(
 			Class<? extends T> type, ThrowableHandler<T> handler);
 
+	/**
+	 * Appends a new handler to the throwable handler chain that accepts the
+	 * type and all of its subclasses. The handlers will be called when an
+	 * exception is thrown while processing a message or handling a response,
+	 * after the handlers registered for the exact type of the exception and
+	 * after those registered for more specific superclasses.
+	 *
+	 * @param type
+	 *            the most general type of throwable that the handler accepts
+	 * @param handler
+	 *            the throwable handler
+	 */
+	public <T extends Throwable> void appendThrowableHandlerForSubclasses(
+			Class<T> type, ThrowableHandler<? super T> handler);
+
+	/**
+	 * Appends a new gate to the dispatch gate chain. The gates will be called
+	 * before a message is taken from its lane to be sent.
+	 *
+	 * @param gate
+	 *            the dispatch gate
+	 */
+	public void appendDispatchGate(DispatchGate gate);
+
 	/**
 	 * Filters the message through the full enqueue filter chain.
 	 *
@@ -96,6 +120,42 @@ public interface AsyncHandlers {
 	public void filterMessageDequeue(
 			Context<Message, MessageDecision> messageContext);
 
+	/**
+	 * Passes a dispatch through the full dispatch gate chain. If a gate does
+	 * not admit it, the admissions of the preceding gates are cancelled and
+	 * the gate wakes the wakeup once the dispatch may be admitted.
+	 *
+	 * @param wakeup
+	 *            the retry of the dispatch
+	 * @return {@code true} if all gates admitted the dispatch, or
+	 *         {@code false} if it will be retried through the wakeup
+	 */
+	public boolean acquireDispatch(DispatchGate.Wakeup wakeup);
+
+	/**
+	 * Binds the admission by all gates of the last dispatch to the message
+	 * taken, which is about to be sent.
+	 *
+	 * @param messageContext
+	 *            the context of the message to be sent
+	 */
+	public void admitDispatch(Context<Message, MessageDecision> messageContext);
+
+	/**
+	 * Takes back the admission by all gates of a dispatch that sends no
+	 * message.
+	 */
+	public void cancelDispatch();
+
+	/**
+	 * Takes back the admission by all gates of a message that will not be
+	 * sent.
+	 *
+	 * @param messageContext
+	 *            the context of the message that will not be sent
+	 */
+	public void releaseDispatch(Context<Message, MessageDecision> messageContext);
+
 	/**
 	 * Passes the response to all handlers registered for the response type.
 	 *
@@ -106,7 +166,9 @@ public interface AsyncHandlers {
 			Context<R, ResultDecision> responseContext);
 
 	/**
-	 * Passes the exception to all handlers registered for the exception type.
+	 * Passes the exception to all handlers registered for the exception type
+	 * and then to all handlers registered for it or any of its superclasses
+	 * by {@link #appendThrowableHandlerForSubclasses(Class, ThrowableHandler)}.
 	 *
 	 * @param throwableContext
 	 *            the context of the exception to be handled
@@ -34,20 +34,41 @@ public class AsyncHandlersFactory {
 
 	/**
 	 * Creates a new {@code AsyncHandlers} instance with two registered
-	 * handlers: {@link DeviceBackoffThrottle} and {@link GlobalBackoffThrottle},
-	 * both using the default {@link ExponentialBackoff} parameters.
+	 * handlers: {@link DeviceBackoffThrottle} and {@link GlobalBackoffThrottle}
+	 * (with separate back-off per priority lane), both using the default
+	 * {@link ExponentialBackoff} parameters.
 	 * 
 	 * @return the handlers instance with the default throttles registered
 	 */
 	public static AsyncHandlers create() {
 		AsyncHandlers handlers = createEmpty();
 
-		new GlobalBackoffThrottle(new ExponentialBackoff(), handlers);
+		new GlobalBackoffThrottle(new ExponentialBackoff.Provider(), handlers);
 		new DeviceBackoffThrottle(new ExponentialBackoff.Provider(), handlers);
 
 		return handlers;
 	}
 
+	/**
+	 * Creates a new {@code AsyncHandlers} instance with the default throttles
+	 * registered, as by {@link #create()}, followed by a
+	 * {@link TokenBucketThrottle} pacing sends to the specified rate.
+	 * 
+	 * @param permitsPerSecond
+	 *            the sustained number of messages sent per second
+	 * @param burst
+	 *            the number of messages that may be sent at once after an
+	 *            idle period
+	 * @return the handlers instance with the throttles registered
+	 */
+	public static AsyncHandlers create(double permitsPerSecond, int burst) {
+		AsyncHandlers handlers = create();
+
+		new TokenBucketThrottle(permitsPerSecond, burst, handlers);
+
+		return handlers;
+	}
+
 	/**
 	 * Creates a new {@code AsyncHandlers} instance with no handlers or filters
 	 * registered.
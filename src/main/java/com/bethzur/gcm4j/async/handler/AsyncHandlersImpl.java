@@ -35,18 +35,24 @@ class AsyncHandlersImpl implements AsyncHandlers {
 
 	private CopyOnWriteArrayListMultimap<Class<? extends Throwable>, ThrowableHandler<? extends Throwable>> throwableHandlers;
 
+	private CopyOnWriteArrayListMultimap<Class<? extends Throwable>, ThrowableHandler<? extends Throwable>> subclassThrowableHandlers;
+
 	private List<MessageFilter> enqueueFilters;
 
 	private List<MessageFilter> dequeueFilters;
 
+	private List<DispatchGate> dispatchGates;
+
 	/**
 	 * Constructs a new intance.
 	 */
 	public AsyncHandlersImpl() {
 		responseHandlers = CopyOnWriteArrayListMultimap.create();
 		throwableHandlers = CopyOnWriteArrayListMultimap.create();
+		subclassThrowableHandlers = CopyOnWriteArrayListMultimap.create();
 		enqueueFilters = new CopyOnWriteArrayList<MessageFilter>();
 		dequeueFilters = new CopyOnWriteArrayList<MessageFilter>();
+		dispatchGates = new CopyOnWriteArrayList<DispatchGate>();
 	}
 
 	@Override
@@ -59,6 +65,11 @@ class AsyncHandlersImpl implements AsyncHandlers {
 		dequeueFilters.add(filter);
 	}
 
+	@Override
+	public void appendDispatchGate(DispatchGate gate) {
+		dispatchGates.add(gate);
+	}
+
 	@Override
 	public <T extends Response> void appendResponseHandler(ResponseType type,
 			ResponseHandler<T> handler) {
@@ -71,6 +82,12 @@ class AsyncHandlersImpl implements AsyncHandlers {
 		throwableHandlers.put(type, handler);
 	}
 
+	@Override
+	public <T extends Throwable> void appendThrowableHandlerForSubclasses(
+			Class<T> type, ThrowableHandler<? super T> handler) {
+		subclassThrowableHandlers.put(type, handler);
+	}
+
 	public void filterMessageEnqueue(
 			Context<Message, MessageDecision> messageContext) {
 		for (MessageFilter f : enqueueFilters) {
@@ -85,6 +102,41 @@ class AsyncHandlersImpl implements AsyncHandlers {
 		}
 	}
 
+	public boolean acquireDispatch(DispatchGate.Wakeup wakeup) {
+		int acquired = 0;
+		try {
+			for (DispatchGate g : dispatchGates) {
+				if (!g.tryAcquire(wakeup))
+					break;
+				acquired++;
+			}
+		} finally {
+			if (acquired < dispatchGates.size()) {
+				for (int i = acquired - 1; i >= 0; i--)
+					dispatchGates.get(i).cancel();
+			}
+		}
+		return acquired == dispatchGates.size();
+	}
+
+	public void admitDispatch(Context<Message, MessageDecision> messageContext) {
+		for (DispatchGate g : dispatchGates) {
+			g.admit(messageContext);
+		}
+	}
+
+	public void cancelDispatch() {
+		for (DispatchGate g : dispatchGates) {
+			g.cancel();
+		}
+	}
+
+	public void releaseDispatch(Context<Message, MessageDecision> messageContext) {
+		for (DispatchGate g : dispatchGates) {
+			g.release(messageContext);
+		}
+	}
+
 	// Type safety ensured by only adding elements to the container via the
 	// type-parameterized appendResponseHandler() method.
 	@SuppressWarnings("unchecked")
@@ -98,7 +150,8 @@ class AsyncHandlersImpl implements AsyncHandlers {
 	}
 
 	// Type safety ensured by only adding elements to the container via the
-	// type-parameterized appendThrowableHandler() method.
+	// type-parameterized appendThrowableHandler() and
+	// appendThrowableHandlerForSubclasses() methods.
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T extends Throwable> void handleThrowable(
@@ -107,5 +160,13 @@ class AsyncHandlersImpl implements AsyncHandlers {
 				.get(throwableContext.unwrap().getClass())) {
 			((ThrowableHandler<T>) h).handleThrowable(throwableContext);
 		}
+		Class<?> type = throwableContext.unwrap().getClass();
+		while (type != null) {
+			for (ThrowableHandler<? extends Throwable> h : subclassThrowableHandlers
+					.get((Class<? extends Throwable>) type)) {
+				((ThrowableHandler<T>) h).handleThrowable(throwableContext);
+			}
+			type = type.getSuperclass();
+		}
 	}
 }
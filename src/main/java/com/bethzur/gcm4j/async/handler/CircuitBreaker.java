@@ -0,0 +1,341 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.handler;
+
+import java.io.IOException;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.ResponseType;
+
+/**
+ * A message filter, response handler, and throwable handler that stops
+ * sending while the GCM service is failing, instead of letting every queued
+ * message make its own attempt.
+ * <p>
+ * The breaker is <em>closed</em> while the service is healthy. Each
+ * {@link ResponseType#InternalError InternalError} response or
+ * {@link IOException} counts as a failure and any other response as a
+ * success. When the failures make up at least the failure ratio of the last
+ * window of outcomes, the breaker <em>opens</em> and dequeued messages are
+ * parked (delayed) until the open period ends. It is then <em>half-open</em>:
+ * a fraction of the dequeued messages is sent as probes and the rest are
+ * parked for a tenth of the open period. A few successful probes close the
+ * breaker again; a failed probe opens it for another period.
+ * <p>
+ * Register this breaker after any throttles, so that messages they delay do
+ * not count against the probe fraction.
+ */
+public class CircuitBreaker implements MessageFilter,
+		ResponseHandler<Response>, ThrowableHandler<Throwable> {
+	static final String CONTEXT_KEY = CircuitBreaker.class.getCanonicalName();
+
+	/**
+	 * The states of a circuit breaker.
+	 */
+	public static enum State {
+		/**
+		 * Messages are sent normally.
+		 */
+		CLOSED,
+		/**
+		 * Messages are parked until the open period ends.
+		 */
+		OPEN,
+		/**
+		 * A fraction of the messages are sent as probes.
+		 */
+		HALF_OPEN;
+	}
+
+	/**
+	 * The default number of outcomes in the sliding window.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 50;
+
+	/**
+	 * The default ratio of failures in the window that opens the breaker.
+	 */
+	public static final double DEFAULT_FAILURE_RATIO = 0.5;
+
+	/**
+	 * The default open period in milliseconds.
+	 */
+	public static final long DEFAULT_OPEN_MILLIS = 30000;
+
+	/**
+	 * The default fraction of messages sent as probes while half-open.
+	 */
+	public static final double DEFAULT_PROBE_RATIO = 0.1;
+
+	/**
+	 * The number of successful probes that close the breaker.
+	 */
+	private static final int CLOSING_PROBES = 5;
+
+	private final boolean[] window;
+
+	private final double failureRatio;
+
+	private final long openMillis;
+
+	private final int probeInterval;
+
+	private volatile State state;
+
+	// Guarded by this
+	private int next;
+
+	private int outcomes;
+
+	private int failures;
+
+	private long openUntil;
+
+	/**
+	 * Identifies the probes of the current half-open period.
+	 */
+	private int generation;
+
+	private long dequeued;
+
+	private int successfulProbes;
+
+	/**
+	 * Constructs a new breaker with the default parameters.
+	 */
+	public CircuitBreaker() {
+		this(DEFAULT_WINDOW_SIZE, DEFAULT_FAILURE_RATIO, DEFAULT_OPEN_MILLIS,
+				DEFAULT_PROBE_RATIO);
+	}
+
+	/**
+	 * Constructs a new breaker with the specified parameters.
+	 * 
+	 * @param windowSize
+	 *            the number of most recent outcomes considered
+	 * @param failureRatio
+	 *            the ratio of failures in a full window that opens the
+	 *            breaker
+	 * @param openMillis
+	 *            the time in milliseconds for which messages are parked once
+	 *            the breaker opens
+	 * @param probeRatio
+	 *            the fraction of messages sent as probes while half-open
+	 */
+	public CircuitBreaker(int windowSize, double failureRatio,
+			long openMillis, double probeRatio) {
+		if (windowSize < 1)
+			throw new IllegalArgumentException(
+					"Argument 'windowSize' must be positive.");
+		if (!(failureRatio > 0 && failureRatio <= 1))
+			throw new IllegalArgumentException(
+					"Argument 'failureRatio' must be in (0, 1].");
+		if (openMillis < 1)
+			throw new IllegalArgumentException(
+					"Argument 'openMillis' must be positive.");
+		if (!(probeRatio > 0 && probeRatio <= 1))
+			throw new IllegalArgumentException(
+					"Argument 'probeRatio' must be in (0, 1].");
+		this.window = new boolean[windowSize];
+		this.failureRatio = failureRatio;
+		this.openMillis = openMillis;
+		this.probeInterval = (int) Math.round(1 / probeRatio);
+		this.state = State.CLOSED;
+	}
+
+	/**
+	 * Constructs a new breaker with the default parameters and registers the
+	 * underlying filters and handlers with the provided {@link AsyncHandlers}
+	 * instance.
+	 * 
+	 * @param handlers
+	 *            the handlers object with which to register the filters and
+	 *            handlers
+	 */
+	public CircuitBreaker(AsyncHandlers handlers) {
+		this();
+		register(handlers);
+	}
+
+	/**
+	 * Constructs a new breaker with the specified parameters and registers the
+	 * underlying filters and handlers with the provided {@link AsyncHandlers}
+	 * instance.
+	 * 
+	 * @param windowSize
+	 *            the number of most recent outcomes considered
+	 * @param failureRatio
+	 *            the ratio of failures in a full window that opens the
+	 *            breaker
+	 * @param openMillis
+	 *            the time in milliseconds for which messages are parked once
+	 *            the breaker opens
+	 * @param probeRatio
+	 *            the fraction of messages sent as probes while half-open
+	 * @param handlers
+	 *            the handlers object with which to register the filters and
+	 *            handlers
+	 */
+	public CircuitBreaker(int windowSize, double failureRatio,
+			long openMillis, double probeRatio, AsyncHandlers handlers) {
+		this(windowSize, failureRatio, openMillis, probeRatio);
+		register(handlers);
+	}
+
+	private void register(AsyncHandlers handlers) {
+		handlers.appendDequeueFilter(this);
+		for (ResponseType type : ResponseType.values()) {
+			handlers.appendResponseHandler(type, this);
+		}
+		handlers.appendThrowableHandlerForSubclasses(IOException.class, this);
+	}
+
+	/**
+	 * Gets the current state of the breaker. An open breaker whose period has
+	 * ended is reported open until the next message is dequeued.
+	 * 
+	 * @return the current state
+	 */
+	public State getState() {
+		return state;
+	}
+
+	// ------------------------- Filter Messages ------------------------------
+	@Override
+	public void enqueueFilter(Context<Message, MessageDecision> context) {
+		// Messages are parked only when about to be sent
+	}
+
+	@Override
+	public void dequeueFilter(Context<Message, MessageDecision> context) {
+		if (state == State.CLOSED
+				|| context.getDecision() != MessageDecision.SEND
+				|| context.getDelay() > 0)
+			return;
+
+		long delay = admit(context);
+		if (delay > 0)
+			context.setDelay(delay);
+	}
+
+	/**
+	 * Decides whether the message may be sent.
+	 * 
+	 * @return the time in milliseconds for which to park the message, or 0
+	 *         to send it
+	 */
+	private synchronized long admit(Context<Message, MessageDecision> context) {
+		long now = System.currentTimeMillis();
+		switch (state) {
+		case OPEN:
+			if (now < openUntil)
+				return openUntil - now;
+			halfOpen();
+			return admitProbe(context);
+		case HALF_OPEN:
+			return admitProbe(context);
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Decides whether the message may be sent as a probe while half-open.
+	 * 
+	 * @return the time in milliseconds for which to park the message, or 0
+	 *         to send it
+	 */
+	private long admitProbe(Context<Message, MessageDecision> context) {
+		if (isProbe(context) || dequeued++ % probeInterval == 0) {
+			context.put(CONTEXT_KEY, generation);
+			return 0;
+		}
+		return Math.max(1, openMillis / 10);
+	}
+
+	private boolean isProbe(Context<?, ?> context) {
+		Integer probe = context.get(CONTEXT_KEY, Integer.class);
+		return probe != null && probe == generation;
+	}
+
+	// ------------------------- Handle Responses -----------------------------
+	@Override
+	public void handleResponse(Context<Response, ResultDecision> context) {
+		record(context,
+				context.unwrap().getResponseType() == ResponseType.InternalError);
+	}
+
+	// ------------------------- Handle Throwables ----------------------------
+	@Override
+	public void handleThrowable(Context<Throwable, ResultDecision> context) {
+		record(context, true);
+	}
+
+	private synchronized void record(Context<?, ResultDecision> context,
+			boolean failure) {
+		boolean probe = isProbe(context);
+		context.put(CONTEXT_KEY, null);
+		switch (state) {
+		case CLOSED:
+			if (outcomes == window.length) {
+				if (window[next])
+					failures--;
+			} else {
+				outcomes++;
+			}
+			window[next] = failure;
+			if (failure)
+				failures++;
+			next = (next + 1) % window.length;
+			if (outcomes == window.length
+					&& failures >= failureRatio * window.length)
+				open();
+			return;
+		case HALF_OPEN:
+			// Outcomes of messages sent before the breaker opened are ignored
+			if (!probe)
+				return;
+			if (failure)
+				open();
+			else if (++successfulProbes >= CLOSING_PROBES)
+				close();
+			return;
+		default:
+			return;
+		}
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openUntil = System.currentTimeMillis() + openMillis;
+		generation++;
+	}
+
+	private void halfOpen() {
+		state = State.HALF_OPEN;
+		dequeued = 0;
+		successfulProbes = 0;
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		next = 0;
+		outcomes = 0;
+		failures = 0;
+	}
+
+}
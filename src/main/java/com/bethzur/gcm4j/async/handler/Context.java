@@ -17,6 +17,7 @@ package com.bethzur.gcm4j.async.handler;
 
 import com.bethzur.gcm4j.Message;
 import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.async.Priority;
 
 import java.util.concurrent.Future;
 
@@ -26,7 +27,9 @@ import java.util.concurrent.Future;
  * <ul>
  * <li>the object,</li>
  * <li>the {@link Future} returned by the
- * {@link AsyncGcmManager#pushMessage(Message)} method call,</li>
+ * {@link AsyncGcmManager#pushMessage(Message)} method call, or the
+ * {@code ResultListener} passed to it, to which the outcome is reported,</li>
+ * <li>the {@link Priority} of the message,</li>
  * <li>the delay before the object should be sent or retried,</li>
  * <li>the decision (delay, retry, return, etc.) for the object, and</li>
  * <li>an object map for {@link MessageFilter}, and {@link ResponseHandler}, and
@@ -49,6 +52,32 @@ public interface Context<T, E extends Enum<E>> {
 	 */
 	public T unwrap();
 
+	/**
+	 * Replaces the object for this context, e.g., with a copy of a message
+	 * whose parameters a filter has adjusted before it is sent.
+	 *
+	 * @param t
+	 *            the new object for this context
+	 */
+	public void replace(T t);
+
+	/**
+	 * Gets the time (in milliseconds since the epoch) at which the message
+	 * was pushed. It is kept across retries.
+	 *
+	 * @return the time at which the message was pushed
+	 */
+	public long getEnqueueTime();
+
+	/**
+	 * Gets the number of times the message has been dispatched for sending,
+	 * including the attempt whose outcome is being handled. It is kept across
+	 * retries.
+	 *
+	 * @return the number of send attempts
+	 */
+	public int getAttempts();
+
 	/**
 	 * Gets the decision for the associated object (e.g., delay, cancel, or
 	 * retry).
@@ -66,6 +95,14 @@ public interface Context<T, E extends Enum<E>> {
 	 */
 	public void setDecision(E e);
 
+	/**
+	 * Gets the priority with which the message was pushed. Filters and handlers
+	 * may use it to keep separate state, e.g., back-off, per priority lane.
+	 *
+	 * @return the priority of the message
+	 */
+	public Priority getPriority();
+
 	/**
 	 * Gets the duration (in milliseconds) that should elapse before the message
 	 * is sent or retried.
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.handler;
+
+import com.bethzur.gcm4j.Message;
+
+/**
+ * Interface for a dispatch gate. A gate admits each dispatch before a message
+ * is taken from its lane to be sent. If it cannot admit one now, the messages
+ * stay in their lanes, where later higher-priority messages overtake them, and
+ * the gate retries the dispatch once it may be admitted.
+ * <p>
+ * The admission is bound to the message taken once it has passed the dequeue
+ * filters and is about to be sent, or cancelled if no message is sent, e.g.,
+ * because the lanes were empty or the message was delayed.
+ */
+public interface DispatchGate {
+	/**
+	 * The retry of a dispatch that a gate did not admit.
+	 */
+	public interface Wakeup {
+		/**
+		 * Retry the dispatch. Must be called exactly once, and not while
+		 * holding a lock.
+		 */
+		public void wake();
+
+		/**
+		 * Run a task of the gate after a delay, e.g., to wake the waiting
+		 * dispatches when the gate opens at a known time. The task must not
+		 * block.
+		 * 
+		 * @param task
+		 *            the task to run
+		 * @param delayMillis
+		 *            the delay in milliseconds
+		 * @throws java.util.concurrent.RejectedExecutionException
+		 *             if the task cannot be scheduled, e.g., because the
+		 *             manager has been shut down
+		 */
+		public void schedule(Runnable task, long delayMillis);
+	}
+
+	/**
+	 * Admit a dispatch. If it cannot be admitted now, the gate keeps the
+	 * wakeup and wakes it once the dispatch may be admitted.
+	 * 
+	 * @param wakeup
+	 *            the retry of the dispatch
+	 * @return {@code true} if the dispatch was admitted, or {@code false} if
+	 *         the gate will wake the wakeup
+	 * @throws java.util.concurrent.RejectedExecutionException
+	 *             if the dispatch cannot wait, e.g., because the manager has
+	 *             been shut down; the gate does not keep the wakeup
+	 */
+	public boolean tryAcquire(Wakeup wakeup);
+
+	/**
+	 * Bind the admission of the last dispatch to the message taken, which is
+	 * about to be sent.
+	 * 
+	 * @param context
+	 *            the context associated with the message
+	 */
+	public void admit(Context<Message, MessageDecision> context);
+
+	/**
+	 * Take back the admission of a dispatch that sends no message.
+	 */
+	public void cancel();
+
+	/**
+	 * Take back the admission of a message that will not be sent, e.g.,
+	 * because it was cancelled after it was admitted. Must do nothing if the
+	 * message holds no admission.
+	 * 
+	 * @param context
+	 *            the context associated with the message
+	 */
+	public void release(Context<Message, MessageDecision> context);
+
+}
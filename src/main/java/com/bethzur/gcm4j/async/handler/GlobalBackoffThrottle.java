@@ -19,14 +19,22 @@ import com.bethzur.gcm4j.Message;
 import com.bethzur.gcm4j.Response;
 import com.bethzur.gcm4j.ResponseType;
 import com.bethzur.gcm4j.UnavailableResponse;
+import com.bethzur.gcm4j.async.Priority;
 import com.bethzur.gcm4j.backoff.Attempt;
 import com.bethzur.gcm4j.backoff.Backoff;
+import com.bethzur.gcm4j.backoff.BackoffProvider;
 
 /**
  * A message filter and response handler that implements global retry with
  * backoff for {@link ResponseType#QuotaExceeded QuotaExceeded} and
  * {@link ResponseType#ServiceUnavailable ServiceUnavailable} responses and
  * delays messages to respect {@code Retry-After} headers.
+ * <p>
+ * When constructed from a {@link BackoffProvider}, the back-off state is kept
+ * separately for each {@link Priority} lane, so failures of bulk traffic do
+ * not delay higher-priority messages. When constructed from a single
+ * {@link Backoff}, it is shared by all lanes. A {@code Retry-After} header
+ * applies to the whole sender and always delays every lane.
  * 
  * @author David R. Bild
  * 
@@ -36,9 +44,9 @@ public class GlobalBackoffThrottle implements MessageFilter,
 	static final String CONTEXT_KEY = GlobalBackoffThrottle.class
 			.getCanonicalName();
 
-	private Backoff backoff;
+	private final Backoff[] backoffs;
 
-	private long nextRetryTime;
+	private volatile long nextRetryTime;
 
 	/**
 	 * Constructs a new throttle using the provided {@code Backoff} instance for
@@ -48,7 +56,24 @@ public class GlobalBackoffThrottle implements MessageFilter,
 	 *            the backoff object
 	 */
 	public GlobalBackoffThrottle(Backoff backoff) {
-		this.backoff = backoff;
+		this.backoffs = new Backoff[Priority.values().length];
+		for (int i = 0; i < backoffs.length; i++) {
+			backoffs[i] = backoff;
+		}
+	}
+
+	/**
+	 * Constructs a new throttle using the provided {@code BackoffProvider} to
+	 * construct a {@link Backoff} instance for each priority lane.
+	 * 
+	 * @param provider
+	 *            the provider for the backoff objects
+	 */
+	public GlobalBackoffThrottle(BackoffProvider provider) {
+		this.backoffs = new Backoff[Priority.values().length];
+		for (int i = 0; i < backoffs.length; i++) {
+			backoffs[i] = provider.createBackoff();
+		}
 	}
 
 	/**
@@ -67,6 +92,24 @@ public class GlobalBackoffThrottle implements MessageFilter,
 		register(handlers);
 	}
 
+	/**
+	 * Constructs a new throttle using the provided {@code BackoffProvider} to
+	 * construct a {@link Backoff} instance for each priority lane and
+	 * registers the underlying filters and handlers with the provider
+	 * {@link AsyncHandlers} instance.
+	 * 
+	 * @param provider
+	 *            the provider for the backoff objects
+	 * @param handlers
+	 *            the handlers object with which to register the filters and
+	 *            handlers
+	 */
+	public GlobalBackoffThrottle(BackoffProvider provider,
+			AsyncHandlers handlers) {
+		this(provider);
+		register(handlers);
+	}
+
 	private void register(AsyncHandlers handlers) {
 		handlers.appendEnqueueFilter(this);
 		handlers.appendDequeueFilter(this);
@@ -86,8 +129,12 @@ public class GlobalBackoffThrottle implements MessageFilter,
 		updateDelay(context);
 	}
 
+	private Backoff backoff(Context<?, ?> context) {
+		return backoffs[context.getPriority().ordinal()];
+	}
+
 	private Attempt createAttempt(Context<Message, MessageDecision> context) {
-		Attempt attempt = backoff.begin();
+		Attempt attempt = backoff(context).begin();
 		context.put(CONTEXT_KEY, attempt);
 		return attempt;
 	}
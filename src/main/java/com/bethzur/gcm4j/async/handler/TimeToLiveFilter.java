@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.handler;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.MessageBuilder;
+
+/**
+ * A message filter that honors the {@link Message#timeToLive() time to live}
+ * of messages while they wait in the async manager.
+ * <p>
+ * The time to live counts from the time the message was pushed. A message is
+ * cancelled once its time to live has passed, or when it is about to be
+ * delayed beyond it, e.g., by a back-off throttle, so register this filter
+ * after any throttles. A message that is still live but has waited at least a
+ * second is sent with its remaining time to live instead of the original.
+ * Messages without a time to live are not affected.
+ */
+public class TimeToLiveFilter implements MessageFilter {
+	static final String CONTEXT_KEY = TimeToLiveFilter.class
+			.getCanonicalName();
+
+	/**
+	 * Constructs a new filter.
+	 */
+	public TimeToLiveFilter() {
+	}
+
+	/**
+	 * Constructs a new filter and registers it with the provided
+	 * {@link AsyncHandlers} instance.
+	 * 
+	 * @param handlers
+	 *            the handlers object with which to register the filters
+	 */
+	public TimeToLiveFilter(AsyncHandlers handlers) {
+		this();
+		register(handlers);
+	}
+
+	private void register(AsyncHandlers handlers) {
+		handlers.appendEnqueueFilter(this);
+		handlers.appendDequeueFilter(this);
+	}
+
+	// ------------------------- Filter Messages ------------------------------
+	@Override
+	public void enqueueFilter(Context<Message, MessageDecision> context) {
+		expire(context);
+	}
+
+	@Override
+	public void dequeueFilter(Context<Message, MessageDecision> context) {
+		if (!expire(context) && context.getDelay() == 0)
+			updateTimeToLive(context);
+	}
+
+	/**
+	 * Cancels the message if its time to live will have passed when it is
+	 * sent.
+	 * 
+	 * @return {@code true} if the message is not to be sent now
+	 */
+	private boolean expire(Context<Message, MessageDecision> context) {
+		if (context.getDecision() != MessageDecision.SEND)
+			return true;
+		int timeToLive = originalTimeToLive(context);
+		if (timeToLive < 0)
+			return false;
+		long sendTime = System.currentTimeMillis() + context.getDelay();
+		if (sendTime - context.getEnqueueTime() > timeToLive * 1000L) {
+			context.setDecision(MessageDecision.CANCEL);
+			return true;
+		}
+		return false;
+	}
+
+	private void updateTimeToLive(Context<Message, MessageDecision> context) {
+		int timeToLive = originalTimeToLive(context);
+		if (timeToLive < 0)
+			return;
+		long elapsed = (System.currentTimeMillis() - context.getEnqueueTime()) / 1000;
+		if (elapsed < 1)
+			return;
+		int remaining = (int) Math.max(0, timeToLive - elapsed);
+		context.replace(new MessageBuilder(context.unwrap()).timeToLive(
+				remaining).build());
+	}
+
+	/**
+	 * Gets the time to live with which the message was pushed, which later
+	 * sends may have replaced with the remaining time.
+	 */
+	private int originalTimeToLive(Context<Message, MessageDecision> context) {
+		Integer timeToLive = context.get(CONTEXT_KEY, Integer.class);
+		if (timeToLive == null) {
+			timeToLive = context.unwrap().timeToLive();
+			context.put(CONTEXT_KEY, timeToLive);
+		}
+		return timeToLive;
+	}
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.async.handler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bethzur.gcm4j.Message;
+
+/**
+ * A dispatch gate that paces sends to a sustained rate, allowing short bursts,
+ * to stay under the sender's quota instead of reacting to
+ * {@link com.bethzur.gcm4j.ResponseType#QuotaExceeded QuotaExceeded}
+ * responses after the fact.
+ * <p>
+ * The token bucket is kept as a single theoretical arrival time (the generic
+ * cell rate algorithm), so taking a token is one compare-and-set. A dispatch
+ * is admitted only if a token is available now; no token is reserved for a
+ * message ahead of time. Otherwise the messages stay in their lanes and the
+ * waiting dispatches are woken when the next tokens are due, so a
+ * higher-priority message pushed meanwhile is still sent first. The tokens
+ * that accrue until the wake-up runs, which may be late by the resolution of
+ * the scheduler, are taken for the woken dispatches rather than lost. A
+ * dispatch that sends no message returns its token, while a message that is
+ * admitted but not sent after all keeps it. Each retry takes a new token.
+ */
+public class TokenBucketThrottle implements DispatchGate {
+	private final long intervalNanos;
+
+	private final long toleranceNanos;
+
+	/**
+	 * The time at which the bucket would be full again, in
+	 * {@link System#nanoTime()} units.
+	 */
+	private final AtomicLong arrival;
+
+	/**
+	 * The number of tokens taken for woken dispatches and not yet claimed.
+	 */
+	private final AtomicInteger reserved;
+
+	// Guarded by this
+	private final Queue<DispatchGate.Wakeup> waiters;
+
+	/**
+	 * Whether a task to wake the waiters is scheduled. Guarded by this.
+	 */
+	private boolean timerPending;
+
+	private final Runnable wakeTask = new Runnable() {
+		@Override
+		public void run() {
+			wakeWaiters();
+		}
+	};
+
+	/**
+	 * Constructs a new throttle allowing the specified sustained rate and
+	 * burst size.
+	 * 
+	 * @param permitsPerSecond
+	 *            the sustained number of messages sent per second
+	 * @param burst
+	 *            the number of messages that may be sent at once after the
+	 *            throttle has been idle
+	 */
+	public TokenBucketThrottle(double permitsPerSecond, int burst) {
+		if (!(permitsPerSecond > 0))
+			throw new IllegalArgumentException(
+					"Argument 'permitsPerSecond' must be positive.");
+		if (burst < 1)
+			throw new IllegalArgumentException(
+					"Argument 'burst' must be positive.");
+		this.intervalNanos = Math.max(1,
+				(long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+		this.toleranceNanos = intervalNanos * (burst - 1);
+		this.arrival = new AtomicLong(System.nanoTime());
+		this.reserved = new AtomicInteger();
+		this.waiters = new ArrayDeque<DispatchGate.Wakeup>();
+	}
+
+	/**
+	 * Constructs a new throttle allowing the specified sustained rate and
+	 * burst size and registers the gate with the provided
+	 * {@link AsyncHandlers} instance.
+	 * 
+	 * @param permitsPerSecond
+	 *            the sustained number of messages sent per second
+	 * @param burst
+	 *            the number of messages that may be sent at once after the
+	 *            throttle has been idle
+	 * @param handlers
+	 *            the handlers object with which to register the gate
+	 */
+	public TokenBucketThrottle(double permitsPerSecond, int burst,
+			AsyncHandlers handlers) {
+		this(permitsPerSecond, burst);
+		register(handlers);
+	}
+
+	private void register(AsyncHandlers handlers) {
+		handlers.appendDispatchGate(this);
+	}
+
+	// ------------------------- Admit Dispatches -----------------------------
+	@Override
+	public boolean tryAcquire(DispatchGate.Wakeup wakeup) {
+		long now = System.nanoTime();
+		if (claimReserved() || take(now))
+			return true;
+		boolean schedule;
+		synchronized (this) {
+			waiters.add(wakeup);
+			schedule = !timerPending;
+			timerPending = true;
+		}
+		if (schedule) {
+			try {
+				wakeup.schedule(wakeTask,
+						toMillis(arrival.get() - toleranceNanos - now));
+			} catch (RuntimeException e) {
+				wakeAll(wakeup);
+				throw e;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void admit(Context<Message, MessageDecision> context) {
+		// The token was taken by the dispatch
+	}
+
+	@Override
+	public void cancel() {
+		arrival.addAndGet(-intervalNanos);
+	}
+
+	@Override
+	public void release(Context<Message, MessageDecision> context) {
+		// The token is spent
+	}
+
+	/**
+	 * Takes a token if one is available now.
+	 * 
+	 * @param now
+	 *            the current time in {@link System#nanoTime()} units
+	 * @return {@code true} if a token was taken
+	 */
+	private boolean take(long now) {
+		while (true) {
+			long arrival = this.arrival.get();
+			if (arrival - toleranceNanos - now > 0)
+				return false;
+			long start = (arrival - now > 0) ? arrival : now;
+			if (this.arrival.compareAndSet(arrival, start + intervalNanos))
+				return true;
+		}
+	}
+
+	/**
+	 * Takes a token that has accrued by now, including those beyond the
+	 * burst size while the waiters' wake-up was late.
+	 */
+	private boolean takeAccrued(long now) {
+		while (true) {
+			long arrival = this.arrival.get();
+			if (arrival - toleranceNanos - now > 0)
+				return false;
+			if (this.arrival.compareAndSet(arrival, arrival + intervalNanos))
+				return true;
+		}
+	}
+
+	/**
+	 * Claims a token taken for a woken dispatch. Any dispatch may claim it; a
+	 * woken dispatch that finds none waits again.
+	 */
+	private boolean claimReserved() {
+		while (true) {
+			int n = reserved.get();
+			if (n == 0)
+				return false;
+			if (reserved.compareAndSet(n, n - 1))
+				return true;
+		}
+	}
+
+	/**
+	 * Takes the accrued tokens for as many waiting dispatches, wakes them, and
+	 * schedules the next wake-up if any remain.
+	 */
+	private void wakeWaiters() {
+		long now = System.nanoTime();
+		List<DispatchGate.Wakeup> woken = new ArrayList<DispatchGate.Wakeup>();
+		DispatchGate.Wakeup next;
+		synchronized (this) {
+			while (!waiters.isEmpty() && takeAccrued(now))
+				woken.add(waiters.poll());
+			next = waiters.peek();
+			timerPending = (next != null);
+		}
+		reserved.addAndGet(woken.size());
+		if (next != null) {
+			try {
+				next.schedule(wakeTask,
+						toMillis(arrival.get() - toleranceNanos - now));
+			} catch (RuntimeException e) {
+				// E.g., the manager was shut down; the retries fail alike
+				wakeAll(null);
+			}
+		}
+		for (DispatchGate.Wakeup waiter : woken)
+			waiter.wake();
+	}
+
+	/**
+	 * Wakes all waiting dispatches, except the specified one, which is
+	 * dropped, when no wake-up can be scheduled.
+	 */
+	private void wakeAll(DispatchGate.Wakeup except) {
+		List<DispatchGate.Wakeup> all;
+		synchronized (this) {
+			all = new ArrayList<DispatchGate.Wakeup>(waiters);
+			waiters.clear();
+			timerPending = false;
+		}
+		for (DispatchGate.Wakeup waiter : all) {
+			if (waiter != except)
+				waiter.wake();
+		}
+	}
+
+	/**
+	 * Rounds a wait up to milliseconds, so waiters are never woken early.
+	 */
+	private static long toMillis(long nanos) {
+		return (Math.max(0, nanos) + 999999) / 1000000;
+	}
+
+}
@@ -18,12 +18,14 @@ package com.bethzur.gcm4j.impl;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 
 import org.apache.http.client.HttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.bethzur.gcm4j.GcmManager;
 import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.MulticastGcmManager;
 import com.bethzur.gcm4j.Response;
 import com.bethzur.gcm4j.UnexpectedResponseException;
 import com.bethzur.gcm4j.auth.ApiKeyAuthProvider;
@@ -35,28 +37,32 @@ import com.bethzur.gcm4j.auth.ApiKeyAuthProvider;
  * authentication tokens and an {@link HttpClient} used to the send HTTP
  * requests to the GCM servers.
  * <p>
+ * Single messages are sent as plaintext form posts. Multicast messages (see
+ * {@link #pushMulticast(List)}) are sent as a single JSON request carrying up
+ * to {@link MulticastGcmManager#MAX_MULTICAST_RECIPIENTS} registration ids.
+ * <p>
  * This class is thread-safe only if the provided {@link HttpClient} instance is
  * thread-safe. An instance which is safe up to {@code MAX_THREADS} concurrent
  * threads (i.e., sufficient for a thread-pool of size {@code MAX_THREADS}) can
  * be obtained like this:<br/>
  * <code>
- * &nbsp;&nbsp;&nbsp;&nbsp; PoolingClientConnectionManager connManager = new PoolingClientConnectionManager(); <br/>
- * &nbsp;&nbsp;&nbsp;&nbsp; conmManager.setMaxTotal(MAX_THREADS); <br/>
- * &nbsp;&nbsp;&nbsp;&nbsp; connManager.setDefaultMaxPerRoute(MAX_THREADS); <br/>
- * &nbsp;&nbsp;&nbsp;&nbsp; HttpClient client = new DefaultHttpClient(connManager); <br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp; CloseableHttpClient client = HttpClientFactory.create(new HttpClientConfig(MAX_THREADS)); <br/>
  * </code>
  * <p>
+ * See {@link HttpClientFactory} for the pool, keep-alive, and timeout options.
+ * Close the client once the manager is no longer used.
+ * <p>
  * SLF4J is used for logging.
  *
  * @author David R. Bild
  *
  */
-public class DefaultGcmManager implements GcmManager {
+public class DefaultGcmManager implements MulticastGcmManager {
 	private static final Logger LOGGER = LoggerFactory
 			.getLogger(DefaultGcmManager.class);
 
 	private static final String URI_STRING = "https://android.googleapis.com/gcm/send";
-	private static final URI URI;
+	static final URI URI;
 	static {
 		try {
 			URI = new URI(URI_STRING);
@@ -103,4 +109,15 @@ public class DefaultGcmManager implements GcmManager {
 		return response;
 	}
 
+	@Override
+	public List<Response> pushMulticast(List<Message> msgs)
+			throws IOException, UnexpectedResponseException {
+		LOGGER.debug("Sending GCM multicast message to {} recipients: {}",
+				msgs.size(), msgs);
+		List<Response> responses = httpClient.execute(new GcmJsonPost(msgs,
+				keyProvider.getKey(), URI), new GcmJsonResponseHandler(msgs));
+		LOGGER.debug("Received GCM multicast reponses: {}", responses);
+		return responses;
+	}
+
 }
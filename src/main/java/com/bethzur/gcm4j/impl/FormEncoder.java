@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.util.Map;
+
+import org.apache.http.Consts;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.ByteArrayBuffer;
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.MessageBuilder;
+
+/**
+ * Encodes a {@link Message} as an {@code application/x-www-form-urlencoded}
+ * request body.
+ * <p>
+ * The output is identical to that of {@code UrlEncodedFormEntity} with UTF-8,
+ * but the body is written directly into a per-thread buffer that is reused
+ * across messages. The constant parameter names are encoded once, and ASCII
+ * characters are encoded by table lookup without going through a charset
+ * encoder. The only allocation per message is the final entity.
+ */
+final class FormEncoder {
+
+	static final ContentType CONTENT_TYPE = ContentType.create(
+			"application/x-www-form-urlencoded", Consts.UTF_8);
+
+	private static final byte[] REGISTRATION_ID = ascii("registration_id");
+	private static final byte[] COLLAPSE_KEY = ascii("&collapse_key");
+	private static final byte[] DELAY_WHILE_IDLE = ascii("&delay_while_idle");
+	private static final byte[] TIME_TO_LIVE = ascii("&time_to_live=");
+	private static final byte[] DATA_KEY_PREFIX = ascii("&data.");
+
+	private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+	/**
+	 * Buffers larger than this are not kept for reuse, so an unusually large
+	 * message does not pin memory to the thread.
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * For each ASCII character, the byte it is written as, or {@code -1} if
+	 * it must be percent-encoded.
+	 */
+	private static final byte[] SAFE = new byte[128];
+
+	static {
+		for (int c = 0; c < SAFE.length; c++) {
+			boolean unreserved = (c >= 'a' && c <= 'z')
+					|| (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+					|| c == '_' || c == '-' || c == '.' || c == '*';
+			SAFE[c] = unreserved ? (byte) c : -1;
+		}
+		SAFE[' '] = '+';
+	}
+
+	private static final ThreadLocal<ByteArrayBuffer> BUFFER = new ThreadLocal<ByteArrayBuffer>() {
+		@Override
+		protected ByteArrayBuffer initialValue() {
+			return new ByteArrayBuffer(INITIAL_CAPACITY);
+		}
+	};
+
+	/**
+	 * Should not be instantiated.
+	 */
+	private FormEncoder() {
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Encodes the specified message as a form entity.
+	 *
+	 * @param message
+	 *            the message to encode
+	 * @return the encoded entity
+	 */
+	public static ByteArrayEntity encode(Message message) {
+		ByteArrayBuffer buffer = BUFFER.get();
+		buffer.clear();
+
+		buffer.append(REGISTRATION_ID, 0, REGISTRATION_ID.length);
+		appendValue(buffer, message.getRegistrationId());
+		buffer.append(COLLAPSE_KEY, 0, COLLAPSE_KEY.length);
+		appendValue(buffer, message.getCollapseKey());
+
+		if (message.delayWhileIdle())
+			buffer.append(DELAY_WHILE_IDLE, 0, DELAY_WHILE_IDLE.length);
+
+		if (message.timeToLive() >= 0) {
+			buffer.append(TIME_TO_LIVE, 0, TIME_TO_LIVE.length);
+			appendInt(buffer, message.timeToLive());
+		}
+
+		for (Map.Entry<String, String> entry : MessageBuilder.readData(message).entrySet()) {
+			buffer.append(DATA_KEY_PREFIX, 0, DATA_KEY_PREFIX.length);
+			appendEncoded(buffer, entry.getKey());
+			appendValue(buffer, entry.getValue());
+		}
+
+		ByteArrayEntity entity = new ByteArrayEntity(buffer.toByteArray(),
+				CONTENT_TYPE);
+		if (buffer.capacity() > MAX_RETAINED_CAPACITY)
+			BUFFER.remove();
+		return entity;
+	}
+
+	/**
+	 * Appends {@code =value}, or nothing for a {@code null} value.
+	 */
+	private static void appendValue(ByteArrayBuffer buffer, String value) {
+		if (value == null)
+			return;
+		buffer.append('=');
+		appendEncoded(buffer, value);
+	}
+
+	private static void appendInt(ByteArrayBuffer buffer, int value) {
+		if (value >= 10)
+			appendInt(buffer, value / 10);
+		buffer.append('0' + value % 10);
+	}
+
+	private static void appendEncoded(ByteArrayBuffer buffer, String s) {
+		int length = s.length();
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				byte b = SAFE[c];
+				if (b >= 0)
+					buffer.append(b);
+				else
+					appendPercent(buffer, c);
+			} else if (c < 0x800) {
+				appendPercent(buffer, 0xC0 | (c >> 6));
+				appendPercent(buffer, 0x80 | (c & 0x3F));
+			} else if (!Character.isSurrogate(c)) {
+				appendPercent(buffer, 0xE0 | (c >> 12));
+				appendPercent(buffer, 0x80 | ((c >> 6) & 0x3F));
+				appendPercent(buffer, 0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i));
+				appendPercent(buffer, 0xF0 | (cp >> 18));
+				appendPercent(buffer, 0x80 | ((cp >> 12) & 0x3F));
+				appendPercent(buffer, 0x80 | ((cp >> 6) & 0x3F));
+				appendPercent(buffer, 0x80 | (cp & 0x3F));
+			} else {
+				// Unpaired surrogate; replaced like the UTF-8 charset encoder
+				appendPercent(buffer, '?');
+			}
+		}
+	}
+
+	private static void appendPercent(ByteArrayBuffer buffer, int b) {
+		buffer.append('%');
+		buffer.append(HEX[(b >> 4) & 0x0F]);
+		buffer.append(HEX[b & 0x0F]);
+	}
+
+	private static byte[] ascii(String s) {
+		return s.getBytes(Consts.ASCII);
+	}
+}
@@ -16,18 +16,16 @@
 package com.bethzur.gcm4j.impl;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.charset.Charset;
 import java.util.Date;
-import java.util.List;
-import java.util.regex.Pattern;
 
+import org.apache.http.Consts;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
-import org.apache.http.ParseException;
 import org.apache.http.client.ResponseHandler;
-import org.apache.http.impl.cookie.DateParseException;
-import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ContentType;
 import org.apache.http.util.EntityUtils;
 import com.bethzur.gcm4j.Message;
 import com.bethzur.gcm4j.Response;
@@ -38,12 +36,63 @@ import com.bethzur.gcm4j.UnexpectedResponseException;
  * A handler responsible for parsing GCM http responses to construct
  * {@link ResponseImpl}, {@link SuccesssResponseImpl}, and
  * {@link UnavailableResponseImpl} objects encapsulating them.
+ * <p>
+ * The {@code key=value} lines of a {@code 200} response are parsed in a single
+ * pass over the body bytes. Keys and error codes are matched against
+ * pre-encoded tables, so no strings are created for them and no exceptions
+ * are thrown unless the response is malformed.
  *
  * @author David R. Bild
  *
  */
 class GcmHttpResponseHandler implements ResponseHandler<Response> {
-	private static final Pattern SPLITTER = Pattern.compile("=");
+
+	private static final byte[] KEY_ID = ascii("id");
+	private static final byte[] KEY_REGISTRATION_ID = ascii("registration_id");
+	private static final byte[] KEY_ERROR = ascii("Error");
+
+	/**
+	 * The response types reported via the {@code Error} key. The error code
+	 * on the wire is the name of the type.
+	 */
+	private static final ResponseType[] ERROR_TYPES = { ResponseType.QuotaExceeded,
+			ResponseType.DeviceQuotaExceeded, ResponseType.MissingRegistration,
+			ResponseType.InvalidRegistration, ResponseType.MismatchSenderId,
+			ResponseType.NotRegistered, ResponseType.MessageTooBig,
+			ResponseType.MissingCollapseKey };
+
+	/**
+	 * The encoded error codes, indexed by length. Each entry lists the codes
+	 * of that length, parallel to {@link #TYPES_BY_LENGTH}.
+	 */
+	private static final byte[][][] CODES_BY_LENGTH;
+
+	private static final ResponseType[][] TYPES_BY_LENGTH;
+
+	static {
+		int maxLength = 0;
+		for (ResponseType type : ERROR_TYPES)
+			maxLength = Math.max(maxLength, type.name().length());
+
+		CODES_BY_LENGTH = new byte[maxLength + 1][][];
+		TYPES_BY_LENGTH = new ResponseType[maxLength + 1][];
+		for (int length = 0; length <= maxLength; length++) {
+			int count = 0;
+			for (ResponseType type : ERROR_TYPES)
+				if (type.name().length() == length)
+					count++;
+			CODES_BY_LENGTH[length] = new byte[count][];
+			TYPES_BY_LENGTH[length] = new ResponseType[count];
+			int i = 0;
+			for (ResponseType type : ERROR_TYPES) {
+				if (type.name().length() == length) {
+					CODES_BY_LENGTH[length][i] = ascii(type.name());
+					TYPES_BY_LENGTH[length][i] = type;
+					i++;
+				}
+			}
+		}
+	}
 
 	final Message message;
 
@@ -55,14 +104,7 @@ class GcmHttpResponseHandler implements ResponseHandler<Response> {
 	public Response handleResponse(HttpResponse response) throws IOException {
 		switch (response.getStatusLine().getStatusCode()) {
 		case 200:
-			List<NameValuePair> body = parseBody(response);
-			ResponseType type = getResponseType(body);
-			switch (type) {
-			case Success:
-				return new SuccessResponseImpl(getResponse(body, ResponseKeys.id), getResponse(body, ResponseKeys.registration_id), message);
-			default:
-				return new ResponseImpl(type, message);
-			}
+			return parseBody(response.getEntity());
 		case 500:
 			return new ResponseImpl(ResponseType.InternalError, message);
 		case 503:
@@ -78,128 +120,166 @@ class GcmHttpResponseHandler implements ResponseHandler<Response> {
 		}
 	}
 
-	private Date getRetryAfter(HttpResponse response) {
+	/**
+	 * Reads the {@code Retry-After} header, either as a number of seconds or
+	 * as an HTTP date.
+	 *
+	 * @param response
+	 *            the response
+	 * @return the time after which to retry, or {@code null} if the header is
+	 *         missing or malformed
+	 */
+	static Date getRetryAfter(HttpResponse response) {
 		Header retryAfterHeader = response.getFirstHeader("Retry-After");
-		if (retryAfterHeader != null) {
-			// Read as HTTP-Date
-			try {
-				return org.apache.http.impl.cookie.DateUtils
-						.parseDate(retryAfterHeader.getValue());
-			} catch (DateParseException e) {
-			}
+		if (retryAfterHeader == null)
+			return null;
 
-			// Read as seconds
-			try {
-				return new Date(System.currentTimeMillis() + 1000L
-						* Integer.valueOf(retryAfterHeader.getValue()));
-			} catch (NumberFormatException e) {
-			}
-		}
+		String value = retryAfterHeader.getValue().trim();
 
-		// Otherwise
-		return null;
+		// Read as seconds, the common case
+		long seconds = parseSeconds(value);
+		if (seconds >= 0)
+			return new Date(System.currentTimeMillis() + 1000L * seconds);
+
+		// Read as HTTP-Date
+		return DateUtils.parseDate(value);
 	}
 
-	private List<NameValuePair> parseBody(HttpResponse response)
+	/**
+	 * Parses a non-negative number of seconds, saturating at
+	 * {@code Integer.MAX_VALUE}.
+	 *
+	 * @return the number of seconds, or {@code -1} if the value is not a
+	 *         number
+	 */
+	private static long parseSeconds(String value) {
+		int length = value.length();
+		if (length == 0)
+			return -1;
+		long seconds = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			seconds = Math.min(Integer.MAX_VALUE, seconds * 10 + (c - '0'));
+		}
+		return seconds;
+	}
+
+	private Response parseBody(HttpEntity entity)
 			throws UnexpectedResponseException {
+		byte[] body;
+		Charset charset;
 		try {
-			String body_lines = EntityUtils.toString(response.getEntity());
-//			body_lines += "\nregistration_id=xxx";
-//			System.out.println(body_lines);
-
-			String lines[] = body_lines.split("[\r\n]+");
-
-			List<NameValuePair> result = new ArrayList<NameValuePair>();
-			for (String body : lines) {
-				String[] splitBody = SPLITTER.split(body);
-				if (splitBody.length == 2) {
-					result.add(new BasicNameValuePair(splitBody[0], splitBody[1]));
-				} else {
-					throw new UnexpectedResponseException(String.format(
-							"Unexpected format of message body:\n%s", body));
-				}
-			}
-			return result;
-		} catch (ParseException e) {
+			body = EntityUtils.toByteArray(entity);
+			ContentType contentType = ContentType.get(entity);
+			charset = (contentType == null || contentType.getCharset() == null) ? Consts.ISO_8859_1
+					: contentType.getCharset();
+		} catch (RuntimeException e) {
 			throw new UnexpectedResponseException(e);
 		} catch (IOException e) {
 			throw new UnexpectedResponseException(e);
 		}
-	}
+		if (body == null)
+			throw new UnexpectedResponseException("Missing message body.");
 
-	private String getResponse(List<NameValuePair> body_list, ResponseKeys find) {
-		try {
-			for (NameValuePair body : body_list) {
-				if (ResponseKeys.valueOf(body.getName()) == find) {
-					return body.getValue();
+		ResponseType type = null;
+		String id = null;
+		String registrationId = null;
+
+		int length = body.length;
+		int start = 0;
+		while (start < length) {
+			// Find the end of the line and the separator
+			int separator = -1;
+			int end = start;
+			for (; end < length; end++) {
+				byte b = body[end];
+				if (b == '\r' || b == '\n')
+					break;
+				if (b == '=') {
+					if (separator >= 0)
+						throw malformed(body, start, end, charset);
+					separator = end;
 				}
 			}
-		} catch (IllegalArgumentException e) {
-		}
-		return null;
-	}
 
-	private ResponseType getResponseType(List<NameValuePair> body_list)
-			throws UnexpectedResponseException {
-		try {
-			for (NameValuePair body : body_list) {
-				switch (ResponseKeys.valueOf(body.getName())) {
-				case id:
-					return ResponseType.Success;
-				case registration_id:
-					// Ignore for now.
-					break;
-				case Error:
-					switch (ResponseErrorValues.valueOf(body.getValue())) {
-					case QuotaExceeded:
-						return ResponseType.QuotaExceeded;
-					case DeviceQuotaExceeded:
-						return ResponseType.DeviceQuotaExceeded;
-					case MissingRegistration:
-						return ResponseType.MissingRegistration;
-					case InvalidRegistration:
-						return ResponseType.InvalidRegistration;
-					case MismatchSenderId:
-						return ResponseType.MismatchSenderId;
-					case NotRegistered:
-						return ResponseType.NotRegistered;
-					case MessageTooBig:
-						return ResponseType.MessageTooBig;
-					case MissingCollapseKey:
-						return ResponseType.MissingCollapseKey;
-					default:
-						throw new UnexpectedResponseException(
-								"Unexpected error message.");
+			if (end > start) {
+				if (separator < 0 || separator == end - 1)
+					throw malformed(body, start, end, charset);
+
+				int keyLength = separator - start;
+				int valueStart = separator + 1;
+				int valueLength = end - valueStart;
+				if (matches(KEY_ID, body, start, keyLength)) {
+					if (type == null) {
+						type = ResponseType.Success;
+						id = new String(body, valueStart, valueLength, charset);
 					}
-				default:
-					throw new UnexpectedResponseException(
-							"Unexpected key in body name-value pair.");
+				} else if (matches(KEY_REGISTRATION_ID, body, start, keyLength)) {
+					if (registrationId == null)
+						registrationId = new String(body, valueStart,
+								valueLength, charset);
+				} else if (matches(KEY_ERROR, body, start, keyLength)) {
+					if (type == null) {
+						type = lookupError(body, valueStart, valueLength);
+						if (type == null)
+							throw new UnexpectedResponseException(
+									String.format(
+											"Unexpected error message: %s",
+											new String(body, valueStart,
+													valueLength, charset)));
+					}
+				} else if (type == null) {
+					throw new UnexpectedResponseException(String.format(
+							"Unexpected key in body name-value pair: %s",
+							new String(body, start, keyLength, charset)));
 				}
 			}
-		} catch (IllegalArgumentException e) {
+
+			start = end + 1;
 		}
-		throw new UnexpectedResponseException(
-				"Unexpected format in message.");
+
+		if (type == null)
+			throw new UnexpectedResponseException(
+					"Unexpected format in message.");
+		if (type == ResponseType.Success)
+			return new SuccessResponseImpl(id, registrationId, message);
+		return new ResponseImpl(type, message);
 	}
 
-	/**
-	 * Keys used in the {@code 200} responses from the GCM service.
-	 *
-	 * @author David R. Bild
-	 *
-	 */
-	static enum ResponseKeys {
-		id, registration_id, Error
+	private static ResponseType lookupError(byte[] body, int offset, int length) {
+		if (length >= CODES_BY_LENGTH.length)
+			return null;
+		byte[][] codes = CODES_BY_LENGTH[length];
+		for (int i = 0; i < codes.length; i++) {
+			if (matches(codes[i], body, offset, length))
+				return TYPES_BY_LENGTH[length][i];
+		}
+		return null;
 	}
 
-	/**
-	 * Possible values for the {@code Error} key in {@code 200} responses from
-	 * the GCM service.
-	 *
-	 * @author David R. Bild
-	 *
-	 */
-	static enum ResponseErrorValues {
-		QuotaExceeded, DeviceQuotaExceeded, MissingRegistration, InvalidRegistration, MismatchSenderId, NotRegistered, MessageTooBig, MissingCollapseKey
+	private static boolean matches(byte[] expected, byte[] body, int offset,
+			int length) {
+		if (expected.length != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (expected[i] != body[offset + i])
+				return false;
+		}
+		return true;
+	}
+
+	private static UnexpectedResponseException malformed(byte[] body,
+			int start, int end, Charset charset) {
+		while (end < body.length && body[end] != '\r' && body[end] != '\n')
+			end++;
+		return new UnexpectedResponseException(String.format(
+				"Unexpected format of message body:\n%s", new String(body,
+						start, end - start, charset)));
+	}
+
+	private static byte[] ascii(String s) {
+		return s.getBytes(Consts.ASCII);
 	}
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.MessageBuilder;
+import com.bethzur.gcm4j.MulticastGcmManager;
+
+/**
+ * Encapsulates a JSON HTTP POST request to the GCM service that delivers one
+ * payload to multiple clients. This class is responsible for constructing the
+ * request from a list of {@link Message} instances that share a payload.
+ */
+class GcmJsonPost extends HttpPost {
+
+	private static final String REGISTRATION_IDS = "registration_ids";
+	private static final String COLLAPSE_ID = "collapse_key";
+	private static final String DELAY_WHILE_IDLE = "delay_while_idle";
+	private static final String TIME_TO_LIVE = "time_to_live";
+	private static final String DATA = "data";
+
+	/**
+	 * Constructs a new multicast POST request for the specified messages,
+	 * authentication token, and endpoint.
+	 *
+	 * @param messages
+	 *            the messages to be placed into the request body
+	 * @param api_key
+	 *            the authentication token for the request
+	 * @param uri
+	 *            the remote endpoint for the request
+	 * @throws IllegalArgumentException
+	 *             if the list is empty, too long, or the payloads differ
+	 */
+	public GcmJsonPost(List<Message> messages, String api_key, URI uri) {
+		super(uri);
+		validateMessages(messages);
+		initAuthKey(api_key);
+		initPostEntity(messages);
+	}
+
+	private void initAuthKey(String api_key) {
+		this.setHeader("Authorization", "key=" + api_key);
+	}
+
+	private void initPostEntity(List<Message> messages) {
+		Message first = messages.get(0);
+		StringBuilder json = new StringBuilder(64 + 200 * messages.size());
+
+		json.append('{');
+		appendKey(json, REGISTRATION_IDS).append('[');
+		for (int i = 0; i < messages.size(); i++) {
+			if (i > 0)
+				json.append(',');
+			appendString(json, messages.get(i).getRegistrationId());
+		}
+		json.append(']');
+
+		json.append(',');
+		appendKey(json, COLLAPSE_ID);
+		appendString(json, first.getCollapseKey());
+
+		if (first.delayWhileIdle()) {
+			json.append(',');
+			appendKey(json, DELAY_WHILE_IDLE).append("true");
+		}
+
+		if (first.timeToLive() >= 0) {
+			json.append(',');
+			appendKey(json, TIME_TO_LIVE).append(first.timeToLive());
+		}
+
+		Map<String, String> data = MessageBuilder.readData(first);
+		if (!data.isEmpty()) {
+			json.append(',');
+			appendKey(json, DATA).append('{');
+			boolean firstEntry = true;
+			for (Map.Entry<String, String> entry : data.entrySet()) {
+				if (!firstEntry)
+					json.append(',');
+				firstEntry = false;
+				appendKey(json, entry.getKey());
+				appendString(json, entry.getValue());
+			}
+			json.append('}');
+		}
+		json.append('}');
+
+		this.setEntity(new StringEntity(json.toString(),
+				ContentType.APPLICATION_JSON));
+	}
+
+	private static StringBuilder appendKey(StringBuilder json, String key) {
+		return appendString(json, key).append(':');
+	}
+
+	private static StringBuilder appendString(StringBuilder json, String value) {
+		if (value == null)
+			return json.append("null");
+
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+		return json.append('"');
+	}
+
+	private static void validateMessages(List<Message> messages) {
+		if (messages == null || messages.isEmpty())
+			throw new IllegalArgumentException(
+					"Argument 'messages' may not be empty.");
+		if (messages.size() > MulticastGcmManager.MAX_MULTICAST_RECIPIENTS)
+			throw new IllegalArgumentException(String.format(
+					"Argument 'messages' may not exceed %d recipients.",
+					MulticastGcmManager.MAX_MULTICAST_RECIPIENTS));
+
+		Message first = messages.get(0);
+		for (Message message : messages) {
+			if (!samePayload(first, message))
+				throw new IllegalArgumentException(String.format(
+						"Message payloads differ: %s and %s", first, message));
+		}
+	}
+
+	private static boolean samePayload(Message a, Message b) {
+		if (a == b)
+			return true;
+		if (a.delayWhileIdle() != b.delayWhileIdle())
+			return false;
+		if (a.timeToLive() != b.timeToLive())
+			return false;
+		if (a.getCollapseKey() == null ? b.getCollapseKey() != null : !a
+				.getCollapseKey().equals(b.getCollapseKey()))
+			return false;
+		return MessageBuilder.readData(a).equals(MessageBuilder.readData(b));
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.ParseException;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.util.EntityUtils;
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.ResponseType;
+import com.bethzur.gcm4j.UnexpectedResponseException;
+
+/**
+ * A handler responsible for parsing GCM JSON multicast responses into one
+ * {@link ResponseImpl}, {@link SuccessResponseImpl}, or
+ * {@link UnavailableResponseImpl} per recipient.
+ */
+class GcmJsonResponseHandler implements ResponseHandler<List<Response>> {
+
+	private static final String RESULTS = "results";
+	private static final String MESSAGE_ID = "message_id";
+	private static final String REGISTRATION_ID = "registration_id";
+	private static final String ERROR = "error";
+
+	private static final String UNAVAILABLE = "Unavailable";
+
+	private static final Map<String, ResponseType> ERRORS;
+	static {
+		Map<String, ResponseType> errors = new HashMap<String, ResponseType>();
+		errors.put("QuotaExceeded", ResponseType.QuotaExceeded);
+		errors.put("DeviceQuotaExceeded", ResponseType.DeviceQuotaExceeded);
+		errors.put("MissingRegistration", ResponseType.MissingRegistration);
+		errors.put("InvalidRegistration", ResponseType.InvalidRegistration);
+		errors.put("MismatchSenderId", ResponseType.MismatchSenderId);
+		errors.put("NotRegistered", ResponseType.NotRegistered);
+		errors.put("MessageTooBig", ResponseType.MessageTooBig);
+		errors.put("MissingCollapseKey", ResponseType.MissingCollapseKey);
+		errors.put("InternalServerError", ResponseType.InternalError);
+		ERRORS = Collections.unmodifiableMap(errors);
+	}
+
+	final List<Message> messages;
+
+	public GcmJsonResponseHandler(List<Message> messages) {
+		this.messages = messages;
+	}
+
+	@Override
+	public List<Response> handleResponse(HttpResponse response)
+			throws IOException {
+		switch (response.getStatusLine().getStatusCode()) {
+		case 200:
+			return parseResults(parseBody(response),
+					GcmHttpResponseHandler.getRetryAfter(response));
+		case 400:
+			throw new UnexpectedResponseException(String.format(
+					"GCM rejected the JSON request: %s",
+					EntityUtils.toString(response.getEntity())));
+		case 401:
+			return uniform(ResponseType.Unauthorized);
+		case 500:
+			return uniform(ResponseType.InternalError);
+		case 503:
+			Date retryAfter = GcmHttpResponseHandler.getRetryAfter(response);
+			List<Response> result = new ArrayList<Response>(messages.size());
+			for (Message message : messages) {
+				result.add(new UnavailableResponseImpl(retryAfter, message));
+			}
+			return result;
+		default:
+			throw new UnexpectedResponseException(String.format(
+					"Unexpected HTTP status code: %d", response.getStatusLine()
+							.getStatusCode()));
+		}
+	}
+
+	private List<Response> uniform(ResponseType type) {
+		List<Response> result = new ArrayList<Response>(messages.size());
+		for (Message message : messages) {
+			result.add(new ResponseImpl(type, message));
+		}
+		return result;
+	}
+
+	private Object parseBody(HttpResponse response)
+			throws UnexpectedResponseException {
+		try {
+			return JsonReader.read(EntityUtils.toString(response.getEntity(),
+					"UTF-8"));
+		} catch (ParseException e) {
+			throw new UnexpectedResponseException(e);
+		} catch (IOException e) {
+			throw new UnexpectedResponseException(e);
+		}
+	}
+
+	private List<Response> parseResults(Object body, Date retryAfter)
+			throws UnexpectedResponseException {
+		if (!(body instanceof Map))
+			throw new UnexpectedResponseException(
+					"Expected a JSON object in message body.");
+
+		Object results = ((Map<?, ?>) body).get(RESULTS);
+		if (!(results instanceof List)
+				|| ((List<?>) results).size() != messages.size())
+			throw new UnexpectedResponseException(String.format(
+					"Expected %d results in message body: %s",
+					messages.size(), body));
+
+		List<Response> responses = new ArrayList<Response>(messages.size());
+		int i = 0;
+		for (Object result : (List<?>) results) {
+			if (!(result instanceof Map))
+				throw new UnexpectedResponseException(
+						"Expected a JSON object for each result.");
+			responses.add(parseResult((Map<?, ?>) result, messages.get(i++),
+					retryAfter));
+		}
+		return responses;
+	}
+
+	private Response parseResult(Map<?, ?> result, Message message,
+			Date retryAfter) throws UnexpectedResponseException {
+		Object messageId = result.get(MESSAGE_ID);
+		if (messageId != null) {
+			Object registrationId = result.get(REGISTRATION_ID);
+			return new SuccessResponseImpl(messageId.toString(),
+					registrationId == null ? null : registrationId.toString(),
+					message);
+		}
+
+		Object error = result.get(ERROR);
+		if (UNAVAILABLE.equals(error))
+			return new UnavailableResponseImpl(retryAfter, message);
+
+		ResponseType type = ERRORS.get(error);
+		if (type == null)
+			throw new UnexpectedResponseException(String.format(
+					"Unexpected result for %s: %s",
+					message.getRegistrationId(), result));
+		return new ResponseImpl(type, message);
+	}
+}
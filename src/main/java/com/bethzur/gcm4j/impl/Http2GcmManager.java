@@ -0,0 +1,278 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.bethzur.gcm4j.GcmCallback;
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.NonBlockingGcmManager;
+import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.UnexpectedResponseException;
+import com.bethzur.gcm4j.auth.ApiKeyAuthProvider;
+
+/**
+ * An implementation of {@link NonBlockingGcmManager} that multiplexes
+ * concurrent requests as HTTP/2 streams over a small, fixed number of
+ * connections to the GCM service.
+ * <p>
+ * Requests are spread round-robin over {@code connections} independent
+ * clients, each allowing at most {@code maxConcurrentStreams} requests in
+ * flight. Further requests, including those of the blocking methods, queue
+ * in the client until one completes. Over HTTP/2, each client multiplexes its
+ * requests over a single connection, so neither the connection count nor the
+ * number of TLS handshakes grows with the load. A connection opened by a burst before the first one is
+ * established is closed again once the first is ready.
+ * <p>
+ * If the endpoint does not negotiate HTTP/2, requests fall back to HTTP/1.1,
+ * which needs one connection per request in flight. Each client then opens up
+ * to {@code maxConcurrentStreams} connections, and keeps them alive between
+ * bursts, for at most {@code connections * maxConcurrentStreams} in total.
+ * <p>
+ * HTTP/2 is provided by OkHttp and requires a JVM with ALPN support (Java 8u252
+ * or newer). OkHttp is an optional dependency of gcm4j, so applications using
+ * this class must declare it themselves. Call {@link #shutdown()} to release
+ * the connections and threads.
+ * <p>
+ * SLF4J is used for logging.
+ */
+public class Http2GcmManager implements NonBlockingGcmManager {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(Http2GcmManager.class);
+
+	private static final long KEEP_ALIVE_MINUTES = 5;
+
+	private final ApiKeyAuthProvider keyProvider;
+
+	private final OkHttpClient[] clients;
+
+	private final AtomicInteger next;
+
+	/**
+	 * Constructs a new Http2GcmManager.
+	 *
+	 * @param keyProvider
+	 *            the provider used to retrieve the API key
+	 * @param connections
+	 *            the number of connections to the GCM service
+	 * @param maxConcurrentStreams
+	 *            the maximum number of concurrent requests on each connection
+	 */
+	public Http2GcmManager(ApiKeyAuthProvider keyProvider, int connections,
+			int maxConcurrentStreams) {
+		if (connections < 1)
+			throw new IllegalArgumentException(
+					"Argument 'connections' must be positive.");
+		if (maxConcurrentStreams < 1)
+			throw new IllegalArgumentException(
+					"Argument 'maxConcurrentStreams' must be positive.");
+
+		this.keyProvider = keyProvider;
+		this.clients = new OkHttpClient[connections];
+		this.next = new AtomicInteger();
+		for (int i = 0; i < connections; i++) {
+			Dispatcher dispatcher = new Dispatcher();
+			dispatcher.setMaxRequests(maxConcurrentStreams);
+			dispatcher.setMaxRequestsPerHost(maxConcurrentStreams);
+			clients[i] = new OkHttpClient.Builder()
+					.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+					.connectionPool(new ConnectionPool(maxConcurrentStreams,
+							KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+					.dispatcher(dispatcher)
+					.followRedirects(false).build();
+		}
+	}
+
+	@Override
+	public Response pushMessage(Message msg) throws IOException,
+			UnexpectedResponseException {
+		LOGGER.debug("Sending GCM message: {}", msg);
+		Response response = execute(
+				new GcmHttpPost(msg, keyProvider.getKey(),
+						DefaultGcmManager.URI), new GcmHttpResponseHandler(msg));
+		LOGGER.debug("Received GCM reponse: {}", response);
+		return response;
+	}
+
+	@Override
+	public List<Response> pushMulticast(List<Message> msgs)
+			throws IOException, UnexpectedResponseException {
+		LOGGER.debug("Sending GCM multicast message to {} recipients: {}",
+				msgs.size(), msgs);
+		List<Response> responses = execute(new GcmJsonPost(msgs,
+				keyProvider.getKey(), DefaultGcmManager.URI),
+				new GcmJsonResponseHandler(msgs));
+		LOGGER.debug("Received GCM multicast reponses: {}", responses);
+		return responses;
+	}
+
+	@Override
+	public void pushMessage(Message msg, GcmCallback<Response> callback) {
+		LOGGER.debug("Sending GCM message: {}", msg);
+		enqueue(new GcmHttpPost(msg, keyProvider.getKey(),
+				DefaultGcmManager.URI), new GcmHttpResponseHandler(msg),
+				callback);
+	}
+
+	@Override
+	public void pushMulticast(List<Message> msgs,
+			GcmCallback<List<Response>> callback) {
+		LOGGER.debug("Sending GCM multicast message to {} recipients: {}",
+				msgs.size(), msgs);
+		enqueue(new GcmJsonPost(msgs, keyProvider.getKey(),
+				DefaultGcmManager.URI), new GcmJsonResponseHandler(msgs),
+				callback);
+	}
+
+	/**
+	 * Closes the connections and stops the threads of the underlying clients.
+	 * Queued requests are failed.
+	 */
+	public void shutdown() {
+		for (OkHttpClient client : clients) {
+			client.dispatcher().cancelAll();
+			client.dispatcher().executorService().shutdown();
+			client.connectionPool().evictAll();
+		}
+	}
+
+	/**
+	 * Enqueues the request like the non-blocking methods, so that it counts
+	 * against the stream limit, and waits for its response. A blocking
+	 * {@link Call#execute()} would bypass the dispatcher's limit.
+	 */
+	private <T> T execute(HttpPost post, ResponseHandler<T> handler)
+			throws IOException {
+		Call call = newCall(post);
+		SettingCallback<T> callback = new SettingCallback<T>();
+		enqueue(call, handler, callback);
+		try {
+			return callback.await();
+		} catch (InterruptedIOException e) {
+			call.cancel();
+			throw e;
+		}
+	}
+
+	private <T> void enqueue(HttpPost post, ResponseHandler<T> handler,
+			GcmCallback<T> callback) {
+		enqueue(newCall(post), handler, callback);
+	}
+
+	private <T> void enqueue(Call call, final ResponseHandler<T> handler,
+			final GcmCallback<T> callback) {
+		call.enqueue(new Callback() {
+			@Override
+			public void onResponse(Call call, okhttp3.Response response) {
+				T result;
+				try {
+					result = handler.handleResponse(toHttpResponse(response));
+				} catch (Throwable throwable) {
+					callback.failed(throwable);
+					return;
+				}
+				LOGGER.debug("Received GCM reponse: {}", result);
+				callback.completed(result);
+			}
+
+			@Override
+			public void onFailure(Call call, IOException e) {
+				callback.failed(e);
+			}
+		});
+	}
+
+	private Call newCall(HttpPost post) {
+		Request.Builder request = new Request.Builder().url(
+				post.getURI().toString());
+		for (Header header : post.getAllHeaders()) {
+			request.header(header.getName(), header.getValue());
+		}
+		request.post(toRequestBody(post.getEntity()));
+
+		int index = (next.getAndIncrement() & Integer.MAX_VALUE)
+				% clients.length;
+		return clients[index].newCall(request.build());
+	}
+
+	private static RequestBody toRequestBody(HttpEntity entity) {
+		try {
+			Header contentType = entity.getContentType();
+			return RequestBody.create(
+					contentType == null ? null : MediaType.parse(contentType
+							.getValue()), EntityUtils.toByteArray(entity));
+		} catch (IOException e) {
+			/*
+			 * Request entities are built in memory, so reading them cannot
+			 * fail.
+			 */
+			throw new RuntimeException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Converts the response to the form expected by the response handlers
+	 * shared with the other transports.
+	 */
+	private static HttpResponse toHttpResponse(okhttp3.Response response)
+			throws IOException {
+		try {
+			HttpResponse httpResponse = new BasicHttpResponse(
+					HttpVersion.HTTP_1_1, response.code(), response.message());
+			Headers headers = response.headers();
+			for (int i = 0; i < headers.size(); i++) {
+				httpResponse.addHeader(headers.name(i), headers.value(i));
+			}
+			ResponseBody body = response.body();
+			MediaType mediaType = body.contentType();
+			httpResponse.setEntity(new ByteArrayEntity(body.bytes(),
+					mediaType == null ? null : ContentType.parse(mediaType
+							.toString())));
+			return httpResponse;
+		} finally {
+			response.close();
+		}
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Configuration for the pooled {@code HttpClient} built by
+ * {@link HttpClientFactory}. All durations are in milliseconds. The setters
+ * return this configuration, so calls can be chained.
+ * <p>
+ * The defaults, for a pool of {@code n} connections, are:
+ * <ul>
+ * <li>{@code n} connections in total and per route (all requests go to the
+ * same GCM route),</li>
+ * <li>connections are kept alive for as long as the server allows, or 60
+ * seconds if it does not say,</li>
+ * <li>connections idle for 30 seconds are evicted, checked every 5 seconds,
+ * </li>
+ * <li>a 10 second connect timeout, 30 second socket timeout, and 30 second
+ * timeout for leasing a connection from the pool.</li>
+ * </ul>
+ *
+ * @see HttpClientFactory
+ */
+public class HttpClientConfig {
+
+	private int maxTotal;
+
+	private int maxPerRoute;
+
+	private long keepAliveMillis;
+
+	private long idleTimeoutMillis;
+
+	private long evictionIntervalMillis;
+
+	private int connectTimeoutMillis;
+
+	private int socketTimeoutMillis;
+
+	private long leaseTimeoutMillis;
+
+	/**
+	 * Constructs a configuration for a pool of the specified size.
+	 *
+	 * @param maxConnections
+	 *            the total and per-route maximum number of connections
+	 */
+	public HttpClientConfig(int maxConnections) {
+		this.maxTotal = validatePositive(maxConnections, "maxConnections");
+		this.maxPerRoute = maxConnections;
+		this.keepAliveMillis = 60000;
+		this.idleTimeoutMillis = 30000;
+		this.evictionIntervalMillis = 5000;
+		this.connectTimeoutMillis = 10000;
+		this.socketTimeoutMillis = 30000;
+		this.leaseTimeoutMillis = 30000;
+	}
+
+	/**
+	 * Constructs a configuration with one connection for each thread of the
+	 * executor that will send the requests, so no sending thread waits for a
+	 * connection.
+	 *
+	 * @param executor
+	 *            the executor that will send the requests
+	 * @return the configuration
+	 */
+	public static HttpClientConfig sizedFor(ScheduledThreadPoolExecutor executor) {
+		return new HttpClientConfig(Math.max(1, executor.getCorePoolSize()));
+	}
+
+	private static int validatePositive(int value, String name) {
+		if (value < 1)
+			throw new IllegalArgumentException(String.format(
+					"Argument '%s' must be positive.", name));
+		return value;
+	}
+
+	private static long validateNotNegative(long value, String name) {
+		if (value < 0)
+			throw new IllegalArgumentException(String.format(
+					"Argument '%s' may not be negative.", name));
+		return value;
+	}
+
+	/**
+	 * Sets the maximum number of connections in the pool.
+	 *
+	 * @param maxTotal
+	 *            the maximum number of connections
+	 * @return this configuration
+	 */
+	public HttpClientConfig maxTotal(int maxTotal) {
+		this.maxTotal = validatePositive(maxTotal, "maxTotal");
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of connections to a single route.
+	 *
+	 * @param maxPerRoute
+	 *            the maximum number of connections per route
+	 * @return this configuration
+	 */
+	public HttpClientConfig maxPerRoute(int maxPerRoute) {
+		this.maxPerRoute = validatePositive(maxPerRoute, "maxPerRoute");
+		return this;
+	}
+
+	/**
+	 * Sets how long a connection is kept alive when the server's response
+	 * does not include a {@code Keep-Alive} timeout.
+	 *
+	 * @param keepAliveMillis
+	 *            the default keep-alive duration
+	 * @return this configuration
+	 */
+	public HttpClientConfig keepAliveMillis(long keepAliveMillis) {
+		this.keepAliveMillis = validateNotNegative(keepAliveMillis,
+				"keepAliveMillis");
+		return this;
+	}
+
+	/**
+	 * Sets how long a connection may sit idle in the pool before it is
+	 * evicted.
+	 *
+	 * @param idleTimeoutMillis
+	 *            the idle timeout
+	 * @return this configuration
+	 */
+	public HttpClientConfig idleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = validateNotNegative(idleTimeoutMillis,
+				"idleTimeoutMillis");
+		return this;
+	}
+
+	/**
+	 * Sets how often expired and idle connections are evicted. A value of
+	 * {@code 0} disables eviction.
+	 *
+	 * @param evictionIntervalMillis
+	 *            the eviction interval
+	 * @return this configuration
+	 */
+	public HttpClientConfig evictionIntervalMillis(long evictionIntervalMillis) {
+		this.evictionIntervalMillis = validateNotNegative(
+				evictionIntervalMillis, "evictionIntervalMillis");
+		return this;
+	}
+
+	/**
+	 * Sets the timeout for establishing a connection.
+	 *
+	 * @param connectTimeoutMillis
+	 *            the connect timeout, {@code 0} for none
+	 * @return this configuration
+	 */
+	public HttpClientConfig connectTimeoutMillis(int connectTimeoutMillis) {
+		this.connectTimeoutMillis = (int) validateNotNegative(
+				connectTimeoutMillis, "connectTimeoutMillis");
+		return this;
+	}
+
+	/**
+	 * Sets the timeout for waiting for data on an established connection.
+	 *
+	 * @param socketTimeoutMillis
+	 *            the socket timeout, {@code 0} for none
+	 * @return this configuration
+	 */
+	public HttpClientConfig socketTimeoutMillis(int socketTimeoutMillis) {
+		this.socketTimeoutMillis = (int) validateNotNegative(
+				socketTimeoutMillis, "socketTimeoutMillis");
+		return this;
+	}
+
+	/**
+	 * Sets the timeout for leasing a connection from the pool.
+	 *
+	 * @param leaseTimeoutMillis
+	 *            the lease timeout, {@code 0} for none
+	 * @return this configuration
+	 */
+	public HttpClientConfig leaseTimeoutMillis(long leaseTimeoutMillis) {
+		this.leaseTimeoutMillis = validateNotNegative(leaseTimeoutMillis,
+				"leaseTimeoutMillis");
+		return this;
+	}
+
+	public int getMaxTotal() {
+		return maxTotal;
+	}
+
+	public int getMaxPerRoute() {
+		return maxPerRoute;
+	}
+
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	public long getEvictionIntervalMillis() {
+		return evictionIntervalMillis;
+	}
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public int getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	public long getLeaseTimeoutMillis() {
+		return leaseTimeoutMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String
+				.format("HttpClientConfig(maxTotal=%d, maxPerRoute=%d, keepAliveMillis=%d, idleTimeoutMillis=%d, evictionIntervalMillis=%d, connectTimeoutMillis=%d, socketTimeoutMillis=%d, leaseTimeoutMillis=%d)",
+						maxTotal, maxPerRoute, keepAliveMillis,
+						idleTimeoutMillis, evictionIntervalMillis,
+						connectTimeoutMillis, socketTimeoutMillis,
+						leaseTimeoutMillis);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Provides static methods for creating pooled {@code CloseableHttpClient}
+ * instances suitable for {@link DefaultGcmManager}.
+ * <p>
+ * The default connection manager of httpclient allows only two connections
+ * per route, which throttles a {@code DefaultGcmManager} shared by more
+ * sending threads. A client for the threads of an executor can instead be
+ * created like this: </br> <code>
+ *   PooledHttpClient client = HttpClientFactory.create(HttpClientConfig.sizedFor(executor));
+ * </code>
+ */
+public class HttpClientFactory {
+
+	/**
+	 * Should not be instantiated.
+	 */
+	private HttpClientFactory() {
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Creates a pooled client with the specified configuration.
+	 *
+	 * @param config
+	 *            the pool and timeout configuration
+	 * @return the constructed client
+	 */
+	public static PooledHttpClient create(final HttpClientConfig config) {
+		PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
+		connManager.setMaxTotal(config.getMaxTotal());
+		connManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+		connManager.setDefaultSocketConfig(SocketConfig.custom()
+				.setSoTimeout(config.getSocketTimeoutMillis())
+				.setTcpNoDelay(true).build());
+
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(config.getConnectTimeoutMillis())
+				.setSocketTimeout(config.getSocketTimeoutMillis())
+				.setConnectionRequestTimeout(
+						(int) Math.min(config.getLeaseTimeoutMillis(),
+								Integer.MAX_VALUE)).build();
+
+		CloseableHttpClient client = HttpClientBuilder.create()
+				.setConnectionManager(connManager)
+				.setDefaultRequestConfig(requestConfig)
+				.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+					@Override
+					public long getKeepAliveDuration(HttpResponse response,
+							HttpContext context) {
+						long duration = super.getKeepAliveDuration(response,
+								context);
+						return (duration < 0) ? config.getKeepAliveMillis()
+								: duration;
+					}
+				}).build();
+
+		return new PooledHttpClient(client, connManager, config);
+	}
+
+	/**
+	 * Creates a pooled client with one connection for each thread of the
+	 * specified executor and otherwise default configuration.
+	 *
+	 * @param executor
+	 *            the executor that will send the requests
+	 * @return the constructed client
+	 * @see HttpClientConfig#sizedFor(ScheduledThreadPoolExecutor)
+	 */
+	public static PooledHttpClient create(ScheduledThreadPoolExecutor executor) {
+		return create(HttpClientConfig.sizedFor(executor));
+	}
+}
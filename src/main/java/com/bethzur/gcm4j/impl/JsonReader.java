@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bethzur.gcm4j.UnexpectedResponseException;
+
+/**
+ * A minimal JSON reader, sufficient for the multicast responses returned by
+ * the GCM service. Objects are read as {@code Map<String, Object>}, arrays as
+ * {@code List<Object>}, numbers as {@code Double} or {@code Long}, and the
+ * literals as {@code Boolean} or {@code null}.
+ */
+class JsonReader {
+
+	private final String json;
+
+	private int pos;
+
+	private JsonReader(String json) {
+		this.json = json;
+		this.pos = 0;
+	}
+
+	/**
+	 * Reads the single JSON value contained in the string.
+	 *
+	 * @param json
+	 *            the JSON text
+	 * @return the value
+	 * @throws UnexpectedResponseException
+	 *             if the text is not valid JSON
+	 */
+	public static Object read(String json) throws UnexpectedResponseException {
+		JsonReader reader = new JsonReader(json);
+		Object value = reader.readValue();
+		reader.skipWhitespace();
+		if (reader.pos != json.length())
+			throw reader.error("Trailing characters");
+		return value;
+	}
+
+	private Object readValue() throws UnexpectedResponseException {
+		skipWhitespace();
+		if (pos >= json.length())
+			throw error("Unexpected end of input");
+
+		char c = json.charAt(pos);
+		switch (c) {
+		case '{':
+			return readObject();
+		case '[':
+			return readArray();
+		case '"':
+			return readString();
+		case 't':
+			return readLiteral("true", Boolean.TRUE);
+		case 'f':
+			return readLiteral("false", Boolean.FALSE);
+		case 'n':
+			return readLiteral("null", null);
+		default:
+			return readNumber();
+		}
+	}
+
+	private Map<String, Object> readObject() throws UnexpectedResponseException {
+		Map<String, Object> object = new HashMap<String, Object>();
+		pos++; // '{'
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+			return object;
+		}
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"')
+				throw error("Expected object key");
+			String key = readString();
+			skipWhitespace();
+			expect(':');
+			object.put(key, readValue());
+			skipWhitespace();
+			char c = next();
+			if (c == '}')
+				return object;
+			if (c != ',')
+				throw error("Expected ',' or '}'");
+		}
+	}
+
+	private List<Object> readArray() throws UnexpectedResponseException {
+		List<Object> array = new ArrayList<Object>();
+		pos++; // '['
+		skipWhitespace();
+		if (peek() == ']') {
+			pos++;
+			return array;
+		}
+		while (true) {
+			array.add(readValue());
+			skipWhitespace();
+			char c = next();
+			if (c == ']')
+				return array;
+			if (c != ',')
+				throw error("Expected ',' or ']'");
+		}
+	}
+
+	private String readString() throws UnexpectedResponseException {
+		pos++; // '"'
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			char c = next();
+			if (c == '"')
+				return sb.toString();
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			char escaped = next();
+			switch (escaped) {
+			case '"':
+			case '\\':
+			case '/':
+				sb.append(escaped);
+				break;
+			case 'b':
+				sb.append('\b');
+				break;
+			case 'f':
+				sb.append('\f');
+				break;
+			case 'n':
+				sb.append('\n');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'u':
+				if (pos + 4 > json.length())
+					throw error("Truncated unicode escape");
+				try {
+					sb.append((char) Integer.parseInt(
+							json.substring(pos, pos + 4), 16));
+				} catch (NumberFormatException e) {
+					throw error("Invalid unicode escape");
+				}
+				pos += 4;
+				break;
+			default:
+				throw error("Invalid escape");
+			}
+		}
+	}
+
+	private Object readLiteral(String literal, Object value)
+			throws UnexpectedResponseException {
+		if (!json.startsWith(literal, pos))
+			throw error("Unexpected token");
+		pos += literal.length();
+		return value;
+	}
+
+	private Number readNumber() throws UnexpectedResponseException {
+		int start = pos;
+		boolean integral = true;
+		while (pos < json.length()) {
+			char c = json.charAt(pos);
+			if (c == '.' || c == 'e' || c == 'E') {
+				integral = false;
+			} else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+				break;
+			}
+			pos++;
+		}
+		if (start == pos)
+			throw error("Unexpected character");
+		String number = json.substring(start, pos);
+		try {
+			return integral ? (Number) Long.valueOf(number) : (Number) Double
+					.valueOf(number);
+		} catch (NumberFormatException e) {
+			throw error("Invalid number");
+		}
+	}
+
+	private void skipWhitespace() {
+		while (pos < json.length()
+				&& Character.isWhitespace(json.charAt(pos)))
+			pos++;
+	}
+
+	private char peek() throws UnexpectedResponseException {
+		if (pos >= json.length())
+			throw error("Unexpected end of input");
+		return json.charAt(pos);
+	}
+
+	private char next() throws UnexpectedResponseException {
+		char c = peek();
+		pos++;
+		return c;
+	}
+
+	private void expect(char expected) throws UnexpectedResponseException {
+		if (next() != expected)
+			throw error(String.format("Expected '%c'", expected));
+	}
+
+	private UnexpectedResponseException error(String reason) {
+		return new UnexpectedResponseException(String.format(
+				"%s at offset %d in JSON body:\n%s", reason, pos, json));
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.bethzur.gcm4j.GcmCallback;
+import com.bethzur.gcm4j.GcmManager;
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.NonBlockingGcmManager;
+import com.bethzur.gcm4j.Response;
+import com.bethzur.gcm4j.UnexpectedResponseException;
+import com.bethzur.gcm4j.auth.ApiKeyAuthProvider;
+
+/**
+ * An implementation of {@link NonBlockingGcmManager} built on the NIO-based
+ * {@link HttpAsyncClient}. Requests are multiplexed over the client's I/O
+ * reactor threads, so no thread is held while waiting for the GCM service to
+ * respond.
+ * <p>
+ * The client must be started before pushing messages and is not shut down by
+ * this class. Its connection pool bounds the number of open connections and
+ * can be configured like this:<br/>
+ * <code>
+ * &nbsp;&nbsp;&nbsp;&nbsp; CloseableHttpAsyncClient client = HttpAsyncClients.custom() <br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp; .setMaxConnTotal(MAX_CONNECTIONS) <br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp; .setMaxConnPerRoute(MAX_CONNECTIONS).build(); <br/>
+ * &nbsp;&nbsp;&nbsp;&nbsp; client.start(); <br/>
+ * </code>
+ * <p>
+ * Requests beyond the pool size wait in the client's own queue, which is
+ * unbounded. To bound the number of requests handed to the client, pass a
+ * {@code maxInFlight} limit; further requests then wait in this manager until
+ * an earlier one completes, without blocking the caller.
+ * <p>
+ * The blocking {@link GcmManager} methods are also supported; they wait for
+ * the non-blocking request to complete.
+ * <p>
+ * httpasyncclient is an optional dependency of gcm4j, so applications using
+ * this class must declare it themselves.
+ * <p>
+ * SLF4J is used for logging.
+ */
+public class NioGcmManager implements NonBlockingGcmManager {
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(NioGcmManager.class);
+
+	private final ApiKeyAuthProvider keyProvider;
+
+	private final HttpAsyncClient httpClient;
+
+	private final Semaphore permits;
+
+	private final Queue<Runnable> waiting;
+
+	/**
+	 * Constructs a new NioGcmManager using the specified
+	 * {@code HttpAsyncClient} to send HTTP requests and
+	 * {@code ApiKeyAuthProvider} to retrieve the API key. The number of
+	 * requests in flight is bounded only by the client.
+	 *
+	 * @param httpClient
+	 *            the started client used to send HTTP requests
+	 * @param keyProvider
+	 *            the provider used to retrieve the API key
+	 */
+	public NioGcmManager(HttpAsyncClient httpClient,
+			ApiKeyAuthProvider keyProvider) {
+		this(httpClient, keyProvider, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Constructs a new NioGcmManager using the specified
+	 * {@code HttpAsyncClient} to send HTTP requests and
+	 * {@code ApiKeyAuthProvider} to retrieve the API key, with at most
+	 * {@code maxInFlight} requests handed to the client at once.
+	 *
+	 * @param httpClient
+	 *            the started client used to send HTTP requests
+	 * @param keyProvider
+	 *            the provider used to retrieve the API key
+	 * @param maxInFlight
+	 *            the maximum number of requests in flight
+	 */
+	public NioGcmManager(HttpAsyncClient httpClient,
+			ApiKeyAuthProvider keyProvider, int maxInFlight) {
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException(
+					"Argument 'maxInFlight' must be positive.");
+		this.keyProvider = keyProvider;
+		this.httpClient = httpClient;
+		this.permits = new Semaphore(maxInFlight);
+		this.waiting = new ConcurrentLinkedQueue<Runnable>();
+	}
+
+	@Override
+	public Response pushMessage(Message msg) throws IOException,
+			UnexpectedResponseException {
+		SettingCallback<Response> callback = new SettingCallback<Response>();
+		pushMessage(msg, callback);
+		return callback.await();
+	}
+
+	@Override
+	public List<Response> pushMulticast(List<Message> msgs)
+			throws IOException, UnexpectedResponseException {
+		SettingCallback<List<Response>> callback = new SettingCallback<List<Response>>();
+		pushMulticast(msgs, callback);
+		return callback.await();
+	}
+
+	@Override
+	public void pushMessage(Message msg, GcmCallback<Response> callback) {
+		LOGGER.debug("Sending GCM message: {}", msg);
+		execute(new GcmHttpPost(msg, keyProvider.getKey(),
+				DefaultGcmManager.URI), new GcmHttpResponseHandler(msg),
+				callback);
+	}
+
+	@Override
+	public void pushMulticast(List<Message> msgs,
+			GcmCallback<List<Response>> callback) {
+		LOGGER.debug("Sending GCM multicast message to {} recipients: {}",
+				msgs.size(), msgs);
+		execute(new GcmJsonPost(msgs, keyProvider.getKey(),
+				DefaultGcmManager.URI), new GcmJsonResponseHandler(msgs),
+				callback);
+	}
+
+	private <T> void execute(final HttpUriRequest request,
+			ResponseHandler<T> handler, GcmCallback<T> callback) {
+		final ParsingCallback<T> parsing = new ParsingCallback<T>(handler,
+				callback);
+		Runnable start = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					httpClient.execute(request, parsing);
+				} catch (RuntimeException e) {
+					// E.g., the client is not running. Do not start waiting
+					// requests from here, which would recurse.
+					permits.release();
+					parsing.callback.failed(e);
+				}
+			}
+		};
+		if (permits.tryAcquire()) {
+			start.run();
+		} else {
+			waiting.add(start);
+			startWaiting();
+		}
+	}
+
+	/**
+	 * Returns the permit of a completed request and starts waiting ones.
+	 */
+	private void release() {
+		permits.release();
+		startWaiting();
+	}
+
+	private void startWaiting() {
+		while (!waiting.isEmpty() && permits.tryAcquire()) {
+			Runnable start = waiting.poll();
+			if (start == null) {
+				// Taken by another thread in the meantime
+				permits.release();
+				continue;
+			}
+			start.run();
+		}
+	}
+
+	/**
+	 * Adapts a {@link GcmCallback} to the {@link FutureCallback} interface of
+	 * the HTTP client, parsing the response with a {@link ResponseHandler} and
+	 * returning the request's permit.
+	 *
+	 * @param <T>
+	 *            the type of the parsed response
+	 */
+	private class ParsingCallback<T> implements FutureCallback<HttpResponse> {
+
+		private final ResponseHandler<T> handler;
+
+		private final GcmCallback<T> callback;
+
+		public ParsingCallback(ResponseHandler<T> handler,
+				GcmCallback<T> callback) {
+			this.handler = handler;
+			this.callback = callback;
+		}
+
+		@Override
+		public void completed(HttpResponse response) {
+			T result;
+			try {
+				result = handler.handleResponse(response);
+			} catch (Throwable throwable) {
+				release();
+				callback.failed(throwable);
+				return;
+			}
+			LOGGER.debug("Received GCM reponse: {}", result);
+			release();
+			callback.completed(result);
+		}
+
+		@Override
+		public void failed(Exception ex) {
+			release();
+			callback.failed(ex);
+		}
+
+		@Override
+		public void cancelled() {
+			release();
+			callback.failed(new InterruptedIOException(
+					"GCM request was cancelled."));
+		}
+
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A thread-safe {@code CloseableHttpClient} backed by a connection pool, as
+ * built by {@link HttpClientFactory}.
+ * <p>
+ * Connections are kept alive for the duration advertised by the server, or
+ * the configured default, and expired or idle connections are evicted by a
+ * background daemon thread. Call {@link #close()} or {@link #shutdown()} to
+ * close the pooled connections and stop the thread.
+ */
+public class PooledHttpClient extends CloseableHttpClient {
+
+	private static final Logger LOGGER = LoggerFactory
+			.getLogger(PooledHttpClient.class);
+
+	private final CloseableHttpClient client;
+
+	private final PoolingHttpClientConnectionManager connManager;
+
+	private final ScheduledExecutorService evictor;
+
+	PooledHttpClient(CloseableHttpClient client,
+			PoolingHttpClientConnectionManager connManager,
+			HttpClientConfig config) {
+		this.client = client;
+		this.connManager = connManager;
+
+		if (config.getEvictionIntervalMillis() > 0) {
+			final long idleTimeout = config.getIdleTimeoutMillis();
+			this.evictor = Executors
+					.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+							.setDaemon(true)
+							.setNameFormat("gcm4j-connection-evictor-%d")
+							.build());
+			this.evictor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					PooledHttpClient.this.connManager.closeExpiredConnections();
+					PooledHttpClient.this.connManager.closeIdleConnections(
+							idleTimeout, TimeUnit.MILLISECONDS);
+				}
+			}, config.getEvictionIntervalMillis(),
+					config.getEvictionIntervalMillis(), TimeUnit.MILLISECONDS);
+		} else {
+			this.evictor = null;
+		}
+	}
+
+	@Override
+	protected CloseableHttpResponse doExecute(HttpHost target,
+			HttpRequest request, HttpContext context) throws IOException,
+			ClientProtocolException {
+		return client.execute(target, request, context);
+	}
+
+	/**
+	 * Returns a snapshot of the pool's lease statistics: the number of leased,
+	 * pending (waiting for a lease), and available connections and the maximum
+	 * pool size. A persistently non-zero pending count means the pool is too
+	 * small for the number of sending threads.
+	 *
+	 * @return the pool statistics
+	 */
+	public PoolStats getPoolStats() {
+		return connManager.getTotalStats();
+	}
+
+	/**
+	 * Stops evicting connections and closes all pooled connections. The client
+	 * cannot be used afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (evictor != null)
+			evictor.shutdownNow();
+		client.close();
+	}
+
+	/**
+	 * Same as {@link #close()}, but logs rather than throws a failure to close
+	 * the pooled connections.
+	 */
+	public void shutdown() {
+		try {
+			close();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to close the pooled connections.", e);
+		}
+	}
+
+	@Override
+	@Deprecated
+	public org.apache.http.params.HttpParams getParams() {
+		return client.getParams();
+	}
+
+	@Override
+	@Deprecated
+	public org.apache.http.conn.ClientConnectionManager getConnectionManager() {
+		return client.getConnectionManager();
+	}
+}
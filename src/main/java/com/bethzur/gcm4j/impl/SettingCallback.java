@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 The Regents of the University of Michigan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+
+import com.bethzur.gcm4j.GcmCallback;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Passes the outcome of a request to a future, for the blocking methods of a
+ * {@link com.bethzur.gcm4j.NonBlockingGcmManager} implemented on top of its
+ * non-blocking ones.
+ *
+ * @param <T>
+ *            the type of the parsed response
+ */
+class SettingCallback<T> implements GcmCallback<T> {
+
+	private final SettableFuture<T> future = SettableFuture.create();
+
+	@Override
+	public void completed(T result) {
+		future.set(result);
+	}
+
+	@Override
+	public void failed(Throwable throwable) {
+		future.setException(throwable);
+	}
+
+	/**
+	 * Waits for the outcome of the request.
+	 *
+	 * @return the parsed response
+	 * @throws IOException
+	 *             if the request failed or the thread was interrupted
+	 */
+	public T await() throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					"Interrupted while waiting for GCM response.");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IOException(cause);
+		}
+	}
+}
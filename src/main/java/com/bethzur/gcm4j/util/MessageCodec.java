@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 The gcm4j contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.bethzur.gcm4j.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+import com.bethzur.gcm4j.Message;
+import com.bethzur.gcm4j.MessageBuilder;
+import com.google.common.base.Charsets;
+
+/**
+ * Static methods to write {@link Message}s to and read them from a compact
+ * binary form, e.g., for journals and dead-letter logs.
+ */
+public final class MessageCodec {
+
+	/**
+	 * Should not be instantiated.
+	 */
+	private MessageCodec() {
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Writes a message.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param message
+	 *            the message
+	 * @throws IOException
+	 *             if the output could not be written
+	 */
+	public static void write(DataOutput out, Message message)
+			throws IOException {
+		writeString(out, message.getRegistrationId());
+		writeString(out, message.getCollapseKey());
+		out.writeBoolean(message.delayWhileIdle());
+		out.writeInt(message.timeToLive());
+		Map<String, String> data = MessageBuilder.readData(message);
+		out.writeInt(data.size());
+		for (Map.Entry<String, String> e : data.entrySet()) {
+			writeString(out, e.getKey());
+			writeString(out, e.getValue());
+		}
+	}
+
+	/**
+	 * Reads a message written by {@link #write(DataOutput, Message)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the message
+	 * @throws IOException
+	 *             if the input could not be read or does not hold a valid
+	 *             message
+	 */
+	public static Message read(DataInput in) throws IOException {
+		MessageBuilder builder = new MessageBuilder();
+		builder.registrationId(readString(in));
+		builder.collapseKey(readString(in));
+		builder.delayWhileIdle(in.readBoolean());
+		builder.timeToLive(in.readInt());
+		for (int n = in.readInt(); n > 0; n--)
+			builder.put(readString(in), readString(in));
+		try {
+			return builder.build();
+		} catch (IllegalStateException e) {
+			throw new IOException("Invalid message.", e);
+		}
+	}
+
+	/**
+	 * Writes an enum constant, which may be {@code null}, by its name, so the
+	 * encoding does not depend on the order of the constants.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param e
+	 *            the constant
+	 * @throws IOException
+	 *             if the output could not be written
+	 */
+	public static void writeEnum(DataOutput out, Enum<?> e)
+			throws IOException {
+		writeString(out, (e == null) ? null : e.name());
+	}
+
+	/**
+	 * Reads an enum constant written by {@link #writeEnum(DataOutput, Enum)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @param type
+	 *            the type of the constant
+	 * @return the constant, possibly {@code null}
+	 * @throws IOException
+	 *             if the input could not be read or does not name a constant
+	 *             of the type
+	 */
+	public static <E extends Enum<E>> E readEnum(DataInput in, Class<E> type)
+			throws IOException {
+		String name = readString(in);
+		if (name == null)
+			return null;
+		try {
+			return Enum.valueOf(type, name);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Unknown " + type.getSimpleName() + " '"
+					+ name + "'.", e);
+		}
+	}
+
+	/**
+	 * Writes a string, which may be {@code null}, as its UTF-8 length and
+	 * bytes.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param s
+	 *            the string
+	 * @throws IOException
+	 *             if the output could not be written
+	 */
+	public static void writeString(DataOutput out, String s)
+			throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = s.getBytes(Charsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(DataOutput, String)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the string, possibly {@code null}
+	 * @throws IOException
+	 *             if the input could not be read
+	 */
+	public static String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, Charsets.UTF_8);
+	}
+}